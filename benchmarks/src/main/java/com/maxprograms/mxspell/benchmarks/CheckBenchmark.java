@@ -0,0 +1,92 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.maxprograms.mxspell.Dictionary;
+import com.maxprograms.mxspell.DictionaryEntry;
+import com.maxprograms.mxspell.SpellChecker;
+
+/**
+ * Latency of checking a single word that is a dictionary entry, an inflected
+ * form of an entry, or not a word at all. Each call checks the next word of a
+ * generated list, so branch prediction cannot learn a single word.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CheckBenchmark {
+
+    private static final int WORDS = 1024;
+
+    @Param({ "known", "inflected", "unknown" })
+    public String kind;
+
+    private SpellChecker checker;
+    private Dictionary dictionary;
+    private String[] words;
+    private int index;
+
+    @Setup
+    public void setup() throws IOException {
+        checker = Dictionaries.newChecker();
+        dictionary = Dictionaries.load();
+        Corpus corpus = new Corpus(dictionary, checker);
+        switch (kind) {
+            case "known":
+                words = corpus.known(WORDS);
+                break;
+            case "inflected":
+                words = corpus.inflected(WORDS);
+                break;
+            default:
+                words = corpus.unknown(WORDS);
+        }
+    }
+
+    private String next() {
+        String word = words[index];
+        index = (index + 1) & (WORDS - 1);
+        return word;
+    }
+
+    /**
+     * Full check, with case handling and affix stripping.
+     */
+    @Benchmark
+    public boolean isCorrect() {
+        return checker.isCorrect(next());
+    }
+
+    /**
+     * Plain lookup of the word in the dictionary.
+     */
+    @Benchmark
+    public DictionaryEntry lookup() {
+        return dictionary.lookup(next());
+    }
+}
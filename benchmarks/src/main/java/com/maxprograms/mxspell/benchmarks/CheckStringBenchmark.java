@@ -0,0 +1,85 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell.benchmarks;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.maxprograms.mxspell.SpellChecker;
+
+/**
+ * Throughput of {@link SpellChecker#checkString(String)} with several threads
+ * sharing one checker, as a server would. Texts are generated paragraphs with
+ * a few misspelled words. Use {@code -t} to change the number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@Threads(4)
+public class CheckStringBenchmark {
+
+    private static final int TEXTS = 64;
+
+    @Param({ "50", "500" })
+    public int words;
+
+    @Param({ "0.02" })
+    public double errorRate;
+
+    private SpellChecker checker;
+    private String[] texts;
+
+    /**
+     * Position of each thread in the list of texts.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int index;
+
+        @Setup
+        public void setup() {
+            index = (int) (Thread.currentThread().getId() % TEXTS);
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        checker = Dictionaries.newChecker();
+        Corpus corpus = new Corpus(Dictionaries.load(), checker);
+        texts = new String[TEXTS];
+        for (int i = 0; i < TEXTS; i++) {
+            texts[i] = corpus.text(words, errorRate);
+        }
+    }
+
+    @Benchmark
+    public Map<String, String[]> checkString(Cursor cursor) {
+        String text = texts[cursor.index];
+        cursor.index = (cursor.index + 1) % TEXTS;
+        return checker.checkString(text);
+    }
+}
@@ -0,0 +1,223 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import com.maxprograms.mxspell.Dictionary;
+import com.maxprograms.mxspell.DictionaryEntry;
+import com.maxprograms.mxspell.SpellChecker;
+
+/**
+ * Generates the words and texts used by the benchmarks from the entries of a
+ * dictionary. A fixed seed is used, so every run measures the same input.
+ */
+final class Corpus {
+
+    private static final long SEED = 20230903L;
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    private final SpellChecker checker;
+    private final Random random = new Random(SEED);
+    private final List<String> roots = new ArrayList<>();
+    private final List<String> inflected = new ArrayList<>();
+    private final List<String> words = new ArrayList<>();
+
+    /**
+     * Collects the words of a dictionary.
+     *
+     * @param dictionary the dictionary
+     * @param checker    a checker for the same dictionary, used to discard
+     *                   generated misspellings that happen to be words
+     */
+    Corpus(Dictionary dictionary, SpellChecker checker) {
+        this.checker = checker;
+        Set<String> forms = new LinkedHashSet<>();
+        for (DictionaryEntry entry : dictionary.getSortedEntries().values()) {
+            roots.add(entry.getWord());
+            for (String word : getWords(dictionary, entry)) {
+                if (checker.isCorrect(word)) {
+                    forms.add(word);
+                }
+            }
+        }
+        inflected.addAll(forms);
+        words.addAll(roots);
+        words.addAll(inflected);
+    }
+
+    /**
+     * Returns dictionary entries, as they appear in the .dic file.
+     *
+     * @param count number of words
+     * @return the words
+     */
+    String[] known(int count) {
+        return pick(roots, count);
+    }
+
+    /**
+     * Returns words built by adding prefixes and suffixes to dictionary entries.
+     *
+     * @param count number of words
+     * @return the words
+     */
+    String[] inflected(int count) {
+        return pick(inflected.isEmpty() ? roots : inflected, count);
+    }
+
+    /**
+     * Returns misspellings of dictionary words, with one edit each.
+     *
+     * @param count number of words
+     * @return the words
+     */
+    String[] unknown(int count) {
+        String[] result = new String[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = misspell(words.get(random.nextInt(words.size())), false);
+        }
+        return result;
+    }
+
+    /**
+     * Returns misspelled words of the given length, made by replacing or
+     * swapping letters of dictionary words of that length.
+     *
+     * @param length length of the words
+     * @param count  number of words
+     * @return the words
+     * @throws IllegalArgumentException if the dictionary has no word of that
+     *                                  length
+     */
+    String[] misspelled(int length, int count) {
+        List<String> candidates = new ArrayList<>();
+        for (String word : words) {
+            if (word.length() == length) {
+                candidates.add(word);
+            }
+        }
+        if (candidates.isEmpty()) {
+            throw new IllegalArgumentException("No words of length " + length);
+        }
+        String[] result = new String[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = misspell(candidates.get(random.nextInt(candidates.size())), true);
+        }
+        return result;
+    }
+
+    /**
+     * Generates text made of sentences of dictionary words.
+     *
+     * @param wordCount number of words
+     * @param errorRate fraction of the words that are misspelled
+     * @return the text
+     */
+    String text(int wordCount, double errorRate) {
+        StringBuilder builder = new StringBuilder(wordCount * 8);
+        int sentence = 0;
+        for (int i = 0; i < wordCount; i++) {
+            String word = words.get(random.nextInt(words.size()));
+            if (random.nextDouble() < errorRate) {
+                word = misspell(word, false);
+            }
+            if (sentence == 0) {
+                word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+                sentence = 6 + random.nextInt(12);
+            }
+            builder.append(word);
+            sentence--;
+            if (sentence == 0 || i == wordCount - 1) {
+                builder.append(random.nextInt(8) == 0 ? "? " : ". ");
+            } else {
+                builder.append(random.nextInt(10) == 0 ? ", " : " ");
+            }
+        }
+        return builder.toString().trim();
+    }
+
+    /**
+     * Applies the affixes of an entry. Real dictionaries also use flags that
+     * are not affixes, such as KEEPCASE, NOSUGGEST or the flags of compound
+     * rules, and the dictionary rejects the whole entry when it finds one; the
+     * flags of those entries are then applied one at a time and the flags that
+     * are not affixes are skipped.
+     */
+    private static List<String> getWords(Dictionary dictionary, DictionaryEntry entry) {
+        try {
+            return dictionary.getWords(entry);
+        } catch (IOException e) {
+            List<String> result = new ArrayList<>();
+            for (String flag : entry.getFlags()) {
+                DictionaryEntry single = new DictionaryEntry(entry.getWord(), new String[] { flag }, null);
+                try {
+                    result.addAll(dictionary.getWords(single));
+                } catch (IOException notAffix) {
+                    // not an affix flag
+                }
+            }
+            return result;
+        }
+    }
+
+    private String[] pick(List<String> list, int count) {
+        String[] result = new String[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = list.get(random.nextInt(list.size()));
+        }
+        return result;
+    }
+
+    /**
+     * Applies a random edit to a word until the result is not a known word.
+     *
+     * @param word       the word
+     * @param keepLength  only replace or swap letters
+     * @return the misspelled word
+     */
+    private String misspell(String word, boolean keepLength) {
+        while (true) {
+            StringBuilder builder = new StringBuilder(word);
+            int position = random.nextInt(word.length());
+            char letter = LETTERS.charAt(random.nextInt(LETTERS.length()));
+            int edit = keepLength ? random.nextInt(2) : random.nextInt(4);
+            switch (edit) {
+                case 0:
+                    builder.setCharAt(position, letter);
+                    break;
+                case 1:
+                    if (word.length() > 1) {
+                        int next = position == word.length() - 1 ? position - 1 : position + 1;
+                        char c = builder.charAt(position);
+                        builder.setCharAt(position, builder.charAt(next));
+                        builder.setCharAt(next, c);
+                    }
+                    break;
+                case 2:
+                    builder.insert(position, letter);
+                    break;
+                default:
+                    if (word.length() > 2) {
+                        builder.deleteCharAt(position);
+                    }
+            }
+            String result = builder.toString();
+            if (!checker.isCorrect(result)) {
+                return result;
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell.benchmarks;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import com.maxprograms.mxspell.Dictionary;
+import com.maxprograms.mxspell.SpellChecker;
+
+/**
+ * Locates the dictionary used by the benchmarks. By default the small English
+ * dictionary bundled with the benchmarks is copied to a temporary folder; set
+ * the system property {@code mxspell.dictionaries} to a folder that has a
+ * subfolder with the .aff and .dic files of the language selected with
+ * {@code mxspell.language} to measure a real dictionary instead.
+ */
+final class Dictionaries {
+
+    static final String LANGUAGE = System.getProperty("mxspell.language", "en");
+
+    private static final String[] BUNDLED = { "en.aff", "en.dic" };
+
+    private static File folder;
+
+    private Dictionaries() {
+        // static methods only
+    }
+
+    /**
+     * Returns the folder that contains the dictionaries, with one subfolder per
+     * language.
+     *
+     * @return the dictionaries folder
+     * @throws IOException if the bundled dictionary cannot be copied
+     */
+    static synchronized File getFolder() throws IOException {
+        if (folder == null) {
+            String configured = System.getProperty("mxspell.dictionaries");
+            folder = configured != null ? new File(configured) : extract();
+        }
+        return folder;
+    }
+
+    /**
+     * Loads a new copy of the dictionary from its .dic and .aff files.
+     *
+     * @return the dictionary
+     * @throws IOException if the dictionary cannot be loaded
+     */
+    static Dictionary load() throws IOException {
+        return new Dictionary(LANGUAGE, getWordsFile().getAbsolutePath(), getAffixFile().getAbsolutePath());
+    }
+
+    /**
+     * Creates a checker. Checkers share the dictionary loaded by the first one.
+     *
+     * @return the checker
+     * @throws IOException if the dictionary cannot be loaded
+     */
+    static SpellChecker newChecker() throws IOException {
+        return new SpellChecker(LANGUAGE, getFolder().getAbsolutePath());
+    }
+
+    static File getAffixFile() throws IOException {
+        return find(".aff");
+    }
+
+    static File getWordsFile() throws IOException {
+        return find(".dic");
+    }
+
+    private static File find(String extension) throws IOException {
+        File languageFolder = new File(getFolder(), LANGUAGE);
+        File[] files = languageFolder.listFiles((dir, name) -> name.endsWith(extension));
+        if (files == null || files.length == 0) {
+            throw new FileNotFoundException(new File(languageFolder, "*" + extension).getAbsolutePath());
+        }
+        return files[0];
+    }
+
+    private static File extract() throws IOException {
+        File root = Files.createTempDirectory("mxspell").toFile();
+        root.deleteOnExit();
+        File target = new File(root, "en");
+        Files.createDirectory(target.toPath());
+        target.deleteOnExit();
+        for (String name : BUNDLED) {
+            File file = new File(target, name);
+            try (InputStream input = Dictionaries.class.getResourceAsStream("/dictionaries/en/" + name)) {
+                if (input == null) {
+                    throw new FileNotFoundException(name);
+                }
+                Files.copy(input, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            file.deleteOnExit();
+        }
+        return root;
+    }
+}
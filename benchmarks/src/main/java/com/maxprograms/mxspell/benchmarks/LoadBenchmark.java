@@ -0,0 +1,78 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.maxprograms.mxspell.Dictionary;
+import com.maxprograms.mxspell.DictionaryCompiler;
+
+/**
+ * Time to load a dictionary in a fresh JVM: each fork measures a few loads
+ * without warming up, so class loading and interpretation are included as
+ * they are when an application opens its first dictionary.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 5)
+@Fork(10)
+public class LoadBenchmark {
+
+    private String wordsFile;
+    private String affixFile;
+    private File compiled;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        wordsFile = Dictionaries.getWordsFile().getAbsolutePath();
+        affixFile = Dictionaries.getAffixFile().getAbsolutePath();
+        compiled = Files.createTempFile("mxspell", DictionaryCompiler.EXTENSION).toFile();
+        DictionaryCompiler.compile(Dictionaries.LANGUAGE, wordsFile, affixFile, compiled);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(compiled.toPath());
+    }
+
+    /**
+     * Parses the .dic and .aff files.
+     */
+    @Benchmark
+    public Dictionary loadHunspell() throws IOException {
+        return new Dictionary(Dictionaries.LANGUAGE, wordsFile, affixFile);
+    }
+
+    /**
+     * Opens a dictionary compiled with {@link DictionaryCompiler}.
+     */
+    @Benchmark
+    public Dictionary loadCompiled() throws IOException {
+        return new Dictionary(Dictionaries.LANGUAGE, compiled);
+    }
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.maxprograms.mxspell.Dictionary;
+import com.maxprograms.mxspell.SpellChecker;
+import com.maxprograms.mxspell.SpellCorrector;
+
+/**
+ * Latency of generating suggestions for misspelled words, by word length. The
+ * number of candidate edits grows with the length of the word, so this shows
+ * how suggestion time scales. {@link SpellCorrector} only tries edits that
+ * produce dictionary entries; {@link SpellChecker} adds the fallbacks for
+ * words it cannot correct that way. No suggestion cache is used.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SuggestBenchmark {
+
+    private static final int WORDS = 256;
+
+    @Param({ "4", "6", "8", "10", "12" })
+    public int length;
+
+    private SpellCorrector corrector;
+    private SpellChecker checker;
+    private String[] words;
+    private int index;
+
+    @Setup
+    public void setup() throws IOException {
+        Dictionary dictionary = Dictionaries.load();
+        corrector = new SpellCorrector(dictionary, Dictionaries.LANGUAGE);
+        checker = Dictionaries.newChecker();
+        words = new Corpus(dictionary, checker).misspelled(length, WORDS);
+    }
+
+    private String next() {
+        String word = words[index];
+        index = (index + 1) & (WORDS - 1);
+        return word;
+    }
+
+    /**
+     * All suggestions, in the order of the edits that produced them.
+     */
+    @Benchmark
+    public String[] suggest() {
+        return corrector.suggest(next());
+    }
+
+    /**
+     * The five best ranked suggestions.
+     */
+    @Benchmark
+    public String[] suggestTop5() {
+        return corrector.suggest(next(), 5);
+    }
+
+    /**
+     * All suggestions, as returned to applications.
+     */
+    @Benchmark
+    public String[] checkerSuggest() {
+        return checker.suggest(next());
+    }
+}
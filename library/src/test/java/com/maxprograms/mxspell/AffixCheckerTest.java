@@ -0,0 +1,79 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class AffixCheckerTest {
+
+    private static Dictionary dictionary;
+
+    @BeforeAll
+    static void load() {
+        dictionary = Fixtures.load();
+    }
+
+    @Test
+    void suffixes() {
+        assertRoot("work", "worked");
+        assertRoot("work", "works");
+        assertRoot("box", "boxes");
+        assertRoot("play", "plays");
+    }
+
+    @Test
+    void suffixesThatStripCharacters() {
+        assertRoot("try", "tried");
+        assertRoot("happy", "happiest");
+        assertRoot("bake", "baking");
+        assertRoot("simple", "simplest");
+    }
+
+    @Test
+    void prefixes() {
+        assertRoot("work", "rework");
+        assertRoot("happy", "unhappy");
+    }
+
+    @Test
+    void prefixAndSuffix() {
+        assertRoot("work", "reworked");
+        assertRoot("happy", "unhappiest");
+    }
+
+    @Test
+    void conditionsMustMatch() {
+        // S adds es only after s, x, z or h and ies only after a consonant and y
+        assertNull(dictionary.findRoot("workes"));
+        assertNull(dictionary.findRoot("playies"));
+        // D after a consonant and y replaces the y
+        assertNull(dictionary.findRoot("tryed"));
+    }
+
+    @Test
+    void flagsMustMatch() {
+        // work has the prefix flag A but not U
+        assertNull(dictionary.findRoot("unwork"));
+        assertNull(dictionary.findRoot("unworked"));
+        // the has no flags
+        assertNull(dictionary.findRoot("thes"));
+    }
+
+    private static void assertRoot(String root, String word) {
+        DictionaryEntry entry = dictionary.findRoot(word);
+        assertNotNull(entry, word);
+        assertEquals(root, entry.getWord(), word);
+    }
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AffixParserTest {
+
+    @TempDir
+    File folder;
+
+    @Test
+    void longFlags() throws IOException {
+        Dictionary dictionary = load("FLAG long\n\nSFX 12 Y 1\nSFX 12 0 s .\n\nSFX AB Y 1\nSFX AB 0 ed .\n",
+                "work/12AB", "play/AB");
+        assertNotNull(dictionary.findRoot("works"));
+        assertNotNull(dictionary.findRoot("worked"));
+        assertNotNull(dictionary.findRoot("played"));
+        // 12 is a pair of characters, not the number twelve
+        assertNull(dictionary.findRoot("plays"));
+    }
+
+    @Test
+    void numericFlags() throws IOException {
+        Dictionary dictionary = load("FLAG num\n\nSFX 1 Y 1\nSFX 1 0 s .\n\nSFX 300 Y 1\nSFX 300 0 ed .\n",
+                "work/1,300", "play/300");
+        assertNotNull(dictionary.findRoot("works"));
+        assertNotNull(dictionary.findRoot("worked"));
+        assertNotNull(dictionary.findRoot("played"));
+        assertNull(dictionary.findRoot("plays"));
+    }
+
+    @Test
+    void utf8Flags() throws IOException {
+        Dictionary dictionary = load("FLAG UTF-8\n\nSFX \u00C4 Y 1\nSFX \u00C4 0 s .\n", "work/\u00C4", "play");
+        assertNotNull(dictionary.findRoot("works"));
+        assertNull(dictionary.findRoot("plays"));
+    }
+
+    @Test
+    void longFlagOutsideLatin1IsRejected() {
+        assertThrows(IOException.class, () -> load("FLAG long\n\nSFX \u0104B Y 1\nSFX \u0104B 0 s .\n", "work"));
+    }
+
+    @Test
+    void numericFlagsWithTheSameValueAreRejected() {
+        assertThrows(IOException.class,
+                () -> load("FLAG num\n\nSFX 1 Y 1\nSFX 1 0 s .\n\nSFX 01 Y 1\nSFX 01 0 ed .\n", "work/1"));
+    }
+
+    @Test
+    void flagAliases() throws IOException {
+        Dictionary dictionary = load("FLAG long\nAF 2\nAF 12AB\nAF AB\n\nSFX 12 Y 1\nSFX 12 0 s .\n\n"
+                + "SFX AB Y 1\nSFX AB 0 ed .\n", "work/1", "play/2", "walk/2");
+        assertNotNull(dictionary.findRoot("works"));
+        assertNotNull(dictionary.findRoot("worked"));
+        assertNotNull(dictionary.findRoot("played"));
+        assertNull(dictionary.findRoot("plays"));
+        // entries that use the same alias share the flag set
+        assertSame(dictionary.lookup("play").getFlagSet(), dictionary.lookup("walk").getFlagSet());
+    }
+
+    @Test
+    void morphologyAliasesAreSkipped() throws IOException {
+        Dictionary dictionary = load("AF 1\nAF S\nAM 2\nAM po:verb\nAM po:noun is:plural\n\n"
+                + "SFX S Y 1\nSFX S 0 s .\n", "work/1 1", "play/1 2");
+        assertNotNull(dictionary.lookup("work"));
+        assertNotNull(dictionary.findRoot("works"));
+        assertNotNull(dictionary.findRoot("plays"));
+    }
+
+    @Test
+    void aliasTablesMustHaveTheDeclaredSize() {
+        assertThrows(IOException.class, () -> load("AF 2\nAF S\n\nSFX S Y 1\nSFX S 0 s .\n", "work/1"));
+        assertThrows(IOException.class, () -> load("AM 2\nAM po:verb\n", "work"));
+    }
+
+    private Dictionary load(String affixes, String... words) throws IOException {
+        File affixFile = new File(folder, "test.aff");
+        File wordsFile = new File(folder, "test.dic");
+        Files.writeString(affixFile.toPath(), "SET UTF-8\n" + affixes, StandardCharsets.UTF_8);
+        Files.writeString(wordsFile.toPath(), words.length + "\n" + String.join("\n", words) + "\n",
+                StandardCharsets.UTF_8);
+        return new Dictionary("en", wordsFile.getAbsolutePath(), affixFile.getAbsolutePath());
+    }
+}
@@ -0,0 +1,108 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DeleteIndexTest {
+
+    private static final String[] QUERIES = { "wrok", "wokr", "wor", "worrk", "tyr", "hapy", "hapyp", "bkae",
+            "paly", "happinesss", "unhappines", "xyz", "" };
+
+    @TempDir
+    File folder;
+
+    @Test
+    void editDistance() {
+        assertEquals(0, EditDistance.distance("work", "work", 2));
+        assertEquals(1, EditDistance.distance("work", "wrok", 2));
+        assertEquals(1, EditDistance.distance("work", "wor", 2));
+        assertEquals(2, EditDistance.distance("work", "walk", 2));
+        assertEquals(3, EditDistance.distance("kitten", "sitting", 3));
+        // larger distances are reported as max + 1
+        assertEquals(2, EditDistance.distance("kitten", "sitting", 1));
+        assertEquals(3, EditDistance.distance("a", "abcd", 2));
+    }
+
+    @Test
+    void searchFindsTheSameWordsAsAFullScan() {
+        WordStore store = Fixtures.load().getWordStore();
+        List<String> keys = new ArrayList<>();
+        store.forEach((key, entry) -> keys.add(key));
+        for (int maxDistance = 1; maxDistance <= 2; maxDistance++) {
+            DeleteIndex index = DeleteIndex.build(store, maxDistance);
+            for (String query : QUERIES) {
+                Map<String, Integer> expected = new TreeMap<>();
+                for (String key : keys) {
+                    int distance = EditDistance.distance(query, key, maxDistance);
+                    if (distance <= maxDistance) {
+                        expected.put(key, distance);
+                    }
+                }
+                Map<String, Integer> found = new TreeMap<>();
+                index.search(query, maxDistance, found::put);
+                assertEquals(expected, found, query + " at distance " + maxDistance);
+            }
+        }
+    }
+
+    @Test
+    void nearWordsAreSortedByDistance() throws IOException {
+        Dictionary dictionary = load(new Dictionary.Options(true, false, 2));
+        // distance 1 first, then distance 2, alphabetically within each distance
+        assertEquals(List.of("work", "book", "cook", "drop", "grow", "look", "walk", "weak"),
+                dictionary.getNearWords("wrok"));
+        assertEquals(List.of("happy", "copy", "easy", "hard", "hate", "heavy", "hope", "pay", "say", "shape"),
+                dictionary.getNearWords("hapy"));
+        // the word itself is not a suggestion
+        assertFalse(dictionary.getNearWords("work").contains("work"));
+    }
+
+    @Test
+    void theIndexIsBuiltOnlyWhenRequested() throws IOException {
+        Dictionary plain = load(Dictionary.Options.DEFAULT);
+        assertEquals(0, plain.getDeleteIndexMemoryUsage());
+        assertEquals(List.of(), plain.getNearWords("wrok"));
+
+        Dictionary indexed = load(new Dictionary.Options(true, false, 1));
+        assertTrue(indexed.getDeleteIndexMemoryUsage() > 0);
+        assertEquals(plain.getMemoryUsage() + indexed.getDeleteIndexMemoryUsage(), indexed.getMemoryUsage());
+    }
+
+    @Test
+    void compiledDictionariesUseTheOptions() throws IOException {
+        File compiled = new File(folder, "en.mxd");
+        Dictionary.Options options = new Dictionary.Options(true, false, 1);
+        String words = Fixtures.wordsFile().getAbsolutePath();
+        String affixes = Fixtures.affixFile().getAbsolutePath();
+        // the first call compiles, the second opens the compiled file
+        assertTrue(DictionaryCompiler.load(Fixtures.LANGUAGE, words, affixes, compiled, options)
+                .getDeleteIndexMemoryUsage() > 0);
+        assertTrue(DictionaryCompiler.load(Fixtures.LANGUAGE, words, affixes, compiled, options)
+                .getDeleteIndexMemoryUsage() > 0);
+    }
+
+    private static Dictionary load(Dictionary.Options options) throws IOException {
+        return new Dictionary(Fixtures.LANGUAGE, Fixtures.wordsFile().getAbsolutePath(),
+                Fixtures.affixFile().getAbsolutePath(), options);
+    }
+}
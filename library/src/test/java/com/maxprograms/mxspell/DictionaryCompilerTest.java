@@ -0,0 +1,104 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DictionaryCompilerTest {
+
+    private static final String[] WORDS = { "work", "reworked", "tried", "happiest", "unhappy", "Paris",
+            "boxes", "the" };
+    private static final String[] NOT_WORDS = { "wrok", "unworked", "tryed", "paris", "thes" };
+
+    @TempDir
+    File folder;
+
+    @Test
+    void compiledDictionaryHasTheSameEntries() throws IOException {
+        Dictionary source = Fixtures.load();
+        File compiled = new File(folder, "en" + DictionaryCompiler.EXTENSION);
+        DictionaryCompiler.compile(Fixtures.LANGUAGE, Fixtures.wordsFile().getAbsolutePath(),
+                Fixtures.affixFile().getAbsolutePath(), compiled);
+        Dictionary loaded = new Dictionary(Fixtures.LANGUAGE, compiled);
+
+        WordStore expected = source.getWordStore();
+        WordStore actual = loaded.getWordStore();
+        assertEquals(expected.size(), actual.size());
+        expected.forEach((key, entry) -> {
+            DictionaryEntry other = actual.get(key);
+            assertNotNull(other, key);
+            assertEquals(entry.getWord(), other.getWord());
+            assertEquals(sorted(entry.getFlags()), sorted(other.getFlags()), key);
+        });
+    }
+
+    @Test
+    void compiledDictionaryAcceptsTheSameWords() throws IOException {
+        File compiled = new File(folder, "en" + DictionaryCompiler.EXTENSION);
+        DictionaryCompiler.compile(Fixtures.LANGUAGE, Fixtures.wordsFile().getAbsolutePath(),
+                Fixtures.affixFile().getAbsolutePath(), compiled);
+        Dictionary loaded = new Dictionary(Fixtures.LANGUAGE, compiled);
+        for (String word : WORDS) {
+            assertTrue(loaded.lookup(word) != null || loaded.findRoot(word) != null, word);
+        }
+        for (String word : NOT_WORDS) {
+            assertNull(loaded.lookup(word), word);
+            assertNull(loaded.findRoot(word), word);
+        }
+    }
+
+    @Test
+    void changedSourcesAreCompiledAgain() throws IOException {
+        File words = new File(folder, "en.dic");
+        File affix = new File(folder, "en.aff");
+        Files.copy(Fixtures.wordsFile().toPath(), words.toPath());
+        Files.copy(Fixtures.affixFile().toPath(), affix.toPath());
+        File compiled = new File(folder, "en" + DictionaryCompiler.EXTENSION);
+
+        assertFalse(DictionaryCompiler.isCurrent(compiled, words.getAbsolutePath(), affix.getAbsolutePath()));
+        DictionaryCompiler.load(Fixtures.LANGUAGE, words.getAbsolutePath(), affix.getAbsolutePath(), compiled);
+        assertTrue(DictionaryCompiler.isCurrent(compiled, words.getAbsolutePath(), affix.getAbsolutePath()));
+
+        List<String> lines = new ArrayList<>(Files.readAllLines(words.toPath(), StandardCharsets.UTF_8));
+        lines.set(0, Integer.toString(Integer.parseInt(lines.get(0).trim()) + 1));
+        lines.add("mxspell");
+        Files.write(words.toPath(), lines, StandardCharsets.UTF_8);
+        assertFalse(DictionaryCompiler.isCurrent(compiled, words.getAbsolutePath(), affix.getAbsolutePath()));
+
+        Dictionary loaded = DictionaryCompiler.load(Fixtures.LANGUAGE, words.getAbsolutePath(),
+                affix.getAbsolutePath(), compiled);
+        assertTrue(DictionaryCompiler.isCurrent(compiled, words.getAbsolutePath(), affix.getAbsolutePath()));
+        assertNotNull(loaded.lookup("mxspell"));
+    }
+
+    private static List<String> sorted(String[] flags) {
+        if (flags == null) {
+            return List.of();
+        }
+        String[] copy = flags.clone();
+        Arrays.sort(copy);
+        return Arrays.asList(copy);
+    }
+}
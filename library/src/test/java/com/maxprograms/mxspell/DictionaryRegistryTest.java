@@ -0,0 +1,130 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DictionaryRegistryTest {
+
+    @TempDir
+    File folder;
+
+    @BeforeEach
+    void copyDictionaries() throws IOException {
+        // the same words under two language codes
+        for (String language : new String[] { "en", "xx" }) {
+            File target = new File(folder, language);
+            Files.createDirectory(target.toPath());
+            Files.copy(Fixtures.wordsFile().toPath(), new File(target, language + ".dic").toPath());
+            Files.copy(Fixtures.affixFile().toPath(), new File(target, language + ".aff").toPath());
+        }
+    }
+
+    @Test
+    void sameLanguageIsLoadedOnce() throws IOException {
+        DictionaryRegistry registry = new DictionaryRegistry(0, false);
+        Dictionary first = registry.get("en", folder.getAbsolutePath());
+        Dictionary second = registry.get("en", folder.getAbsolutePath());
+        assertSame(first, second);
+        assertNotSame(first, registry.get("xx", folder.getAbsolutePath()));
+
+        DictionaryRegistry.Statistics statistics = registry.getStatistics().get("en");
+        assertEquals(1, statistics.loads());
+        assertEquals(1, statistics.hits());
+        assertEquals(0, statistics.evictions());
+    }
+
+    @Test
+    void concurrentRequestsShareOneLoad() throws InterruptedException, ExecutionException {
+        DictionaryRegistry registry = new DictionaryRegistry(0, false);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<Dictionary>> tasks = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                tasks.add(() -> registry.get("en", folder.getAbsolutePath()));
+            }
+            List<Future<Dictionary>> results = executor.invokeAll(tasks);
+            for (Future<Dictionary> result : results) {
+                assertSame(results.get(0).get(), result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, registry.getStatistics().get("en").loads());
+        assertEquals(7, registry.getStatistics().get("en").hits());
+    }
+
+    @Test
+    void leastRecentlyUsedDictionaryIsEvicted() throws IOException {
+        // room for a single dictionary
+        long size = Fixtures.load().getMemoryUsage();
+        DictionaryRegistry registry = new DictionaryRegistry(size + size / 2, false);
+        Dictionary english = registry.get("en", folder.getAbsolutePath());
+        registry.get("xx", folder.getAbsolutePath());
+        assertEquals(1, registry.getStatistics().get("en").evictions());
+        assertEquals(0, registry.getStatistics().get("xx").evictions());
+
+        // evicted dictionaries are loaded again on the next request
+        assertNotSame(english, registry.get("en", folder.getAbsolutePath()));
+        assertEquals(2, registry.getStatistics().get("en").loads());
+        assertEquals(1, registry.getStatistics().get("xx").evictions());
+    }
+
+    @Test
+    void evictReleasesALanguage() throws IOException {
+        DictionaryRegistry registry = new DictionaryRegistry(0, false);
+        Dictionary english = registry.get("en", folder.getAbsolutePath());
+        assertEquals(1, registry.evict("en"));
+        assertEquals(0, registry.evict("en"));
+        assertNotSame(english, registry.get("en", folder.getAbsolutePath()));
+        assertEquals(2, registry.getStatistics().get("en").loads());
+    }
+
+    @Test
+    void dataFoldersShareOneDictionary() throws IOException {
+        DictionaryRegistry registry = new DictionaryRegistry(0, false);
+        File alice = new File(folder, "alice");
+        File bob = new File(folder, "bob");
+        SpellChecker first = new SpellChecker("en", folder.getAbsolutePath(), alice, registry);
+        SpellChecker second = new SpellChecker("en", folder.getAbsolutePath(), bob, registry);
+        assertEquals(1, registry.getStatistics().get("en").loads());
+
+        first.learn("mxspell");
+        second.ignore("xliff");
+        assertTrue(first.isCorrect("mxspell"));
+        assertFalse(second.isCorrect("mxspell"));
+        assertTrue(second.isCorrect("xliff"));
+        assertFalse(first.isCorrect("xliff"));
+
+        // a new checker for the same folder sees its words
+        SpellChecker third = new SpellChecker("en", folder.getAbsolutePath(), alice, registry);
+        assertTrue(third.isCorrect("mxspell"));
+        assertFalse(third.isCorrect("xliff"));
+    }
+}
@@ -0,0 +1,63 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+
+/**
+ * Locates the small English dictionary in the test resources. Its affix file
+ * has prefixes that combine with suffixes, rules that strip characters and
+ * conditions with character classes, so the tests can check affix handling
+ * with words that are easy to reason about.
+ */
+final class Fixtures {
+
+    static final String LANGUAGE = "en";
+
+    private Fixtures() {
+        // static methods only
+    }
+
+    /**
+     * Returns the folder with one subfolder per language, as expected by
+     * {@link SpellChecker}.
+     */
+    static File folder() {
+        URL url = Fixtures.class.getResource("/dictionaries");
+        if (url == null) {
+            throw new IllegalStateException("Missing test dictionaries");
+        }
+        try {
+            return new File(url.toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static File wordsFile() {
+        return new File(folder(), LANGUAGE + "/en.dic");
+    }
+
+    static File affixFile() {
+        return new File(folder(), LANGUAGE + "/en.aff");
+    }
+
+    static Dictionary load() {
+        try {
+            return new Dictionary(LANGUAGE, wordsFile().getAbsolutePath(), affixFile().getAbsolutePath());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
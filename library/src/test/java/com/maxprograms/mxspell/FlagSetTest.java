@@ -0,0 +1,53 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class FlagSetTest {
+
+    @Test
+    void longFlagsPackTwoCharacters() {
+        assertEquals((char) ('A' << 8 | 'B'), FlagSet.encode("AB", FlagSet.LONG));
+        assertEquals((char) ('1' << 8 | '2'), FlagSet.encode("12", FlagSet.LONG));
+        assertEquals('A', FlagSet.encode("A", FlagSet.LONG));
+        // characters above 0xFF would collide with other pairs
+        assertEquals(FlagSet.UNKNOWN, FlagSet.encode("\u0104B", FlagSet.LONG));
+    }
+
+    @Test
+    void numericFlags() {
+        assertEquals((char) 12, FlagSet.encode("12", FlagSet.NUM));
+        assertEquals(FlagSet.UNKNOWN, FlagSet.encode("0", FlagSet.NUM));
+        assertEquals(FlagSet.UNKNOWN, FlagSet.encode("65535", FlagSet.NUM));
+        assertEquals(FlagSet.UNKNOWN, FlagSet.encode("A", FlagSet.NUM));
+    }
+
+    @Test
+    void typeOfCallerFlags() {
+        assertEquals(FlagSet.UTF8, FlagSet.guessType(new String[] { "A", "B" }));
+        assertEquals(FlagSet.NUM, FlagSet.guessType(new String[] { "12", "3" }));
+        assertEquals(FlagSet.LONG, FlagSet.guessType(new String[] { "AB", "Cd" }));
+    }
+
+    @Test
+    void sharedSetsCompareByContents() {
+        FlagSet first = FlagSet.of(new String[] { "B", "A" }, FlagSet.UTF8);
+        FlagSet second = FlagSet.of(new String[] { "A", "B" }, FlagSet.UTF8);
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertTrue(first.contains("A"));
+        assertFalse(first.contains("C"));
+    }
+}
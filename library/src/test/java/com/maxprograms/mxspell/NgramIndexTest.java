@@ -0,0 +1,80 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class NgramIndexTest {
+
+    private static final String[] WORDS = { "lightning", "lighting", "tightening", "nightingale", "apple" };
+
+    @TempDir
+    File folder;
+
+    @Test
+    void mostSimilarWordsComeFirst() throws IOException {
+        Dictionary dictionary = load("", WORDS);
+        assertEquals(List.of("lightning", "tightening", "lighting"), dictionary.getNgramWords("litening"));
+        // four words by default, whatever the case of the misspelling
+        assertEquals(List.of("nightingale", "tightening", "lighting", "lightning"),
+                dictionary.getNgramWords("Nightinggale"));
+    }
+
+    @Test
+    void maxNgramSuggestionsLimitsTheResults() throws IOException {
+        assertEquals(List.of("lightning"), load("MAXNGRAMSUGS 1\n", WORDS).getNgramWords("litening"));
+        assertEquals(List.of(), load("MAXNGRAMSUGS 0\n", WORDS).getNgramWords("litening"));
+    }
+
+    @Test
+    void theBestWordIsKeptUnlessOnlyMaxDiff() throws IOException {
+        assertEquals(List.of("apple"), load("MAXDIFF 0\n", WORDS).getNgramWords("appling"));
+        assertEquals(List.of(), load("MAXDIFF 0\nONLYMAXDIFF\n", WORDS).getNgramWords("appling"));
+        // with MAXDIFF 10 any shared bigram is enough
+        assertEquals(List.of("apple", "lighting", "lightning", "tightening"),
+                load("MAXDIFF 10\n", WORDS).getNgramWords("appling"));
+    }
+
+    @Test
+    void compiledDictionariesKeepTheOptions() throws IOException {
+        load("MAXNGRAMSUGS 1\nMAXDIFF 0\nONLYMAXDIFF\n", WORDS);
+        File compiled = new File(folder, "test" + DictionaryCompiler.EXTENSION);
+        DictionaryCompiler.compile("en", new File(folder, "test.dic").getAbsolutePath(),
+                new File(folder, "test.aff").getAbsolutePath(), compiled);
+        Dictionary dictionary = new Dictionary("en", compiled);
+        assertEquals(List.of("lightning"), dictionary.getNgramWords("lightnin"));
+        assertEquals(List.of(), dictionary.getNgramWords("appling"));
+    }
+
+    @Test
+    void similarWordsAreSuggestedWhenNoEditFindsOne() throws IOException {
+        SpellChecker checker = new SpellChecker(Fixtures.LANGUAGE, Fixtures.folder().getAbsolutePath());
+        assertArrayEquals(new String[] { "play", "explain" }, checker.suggest("xplayx"));
+    }
+
+    private Dictionary load(String affixes, String... words) throws IOException {
+        File affixFile = new File(folder, "test.aff");
+        File wordsFile = new File(folder, "test.dic");
+        Files.writeString(affixFile.toPath(), "SET UTF-8\n" + affixes, StandardCharsets.UTF_8);
+        Files.writeString(wordsFile.toPath(), words.length + "\n" + String.join("\n", words) + "\n",
+                StandardCharsets.UTF_8);
+        return new Dictionary("en", wordsFile.getAbsolutePath(), affixFile.getAbsolutePath());
+    }
+}
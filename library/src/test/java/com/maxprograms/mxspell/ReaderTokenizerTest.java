@@ -0,0 +1,137 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ReaderTokenizerTest {
+
+    @Test
+    void wordsKeepTheirOffsets() throws IOException {
+        String text = "  Hello, (world)!\tdon't\u00A0stop -- 42 well-known\n";
+        List<String> expected = List.of("Hello@2", "world@10", "don't@18", "stop@24", "well@35", "known@40");
+        assertEquals(expected, tokens(new StringReader(text)));
+        for (int chunk = 1; chunk <= 4; chunk++) {
+            assertEquals(expected, tokens(new ChunkedReader(text, chunk)), "chunks of " + chunk);
+        }
+    }
+
+    @Test
+    void longTextsWithoutSpacesAreCutInWords() throws IOException {
+        String hyphens = "word-".repeat(300);
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            expected.add("word@" + i * 5);
+        }
+        assertEquals(expected, tokens(new ChunkedReader(hyphens, 3)));
+
+        String cjk = "\u65E5\u672C\u8A9E\u3002".repeat(100);
+        expected.clear();
+        for (int i = 0; i < 100; i++) {
+            expected.add("\u65E5\u672C\u8A9E@" + i * 4);
+        }
+        assertEquals(expected, tokens(new ChunkedReader(cjk, 2)));
+    }
+
+    @Test
+    void onlyWordsLongerThanTheLimitAreSkipped() throws IOException {
+        String run = "x".repeat(ReaderTokenizer.MAX_TOKEN_LENGTH + 44);
+        assertEquals(List.of("a@0", "b@303"), tokens(new StringReader("a " + run + " b")));
+        assertEquals(List.of("ok@301", "b@304"), tokens(new StringReader(run + "-ok b")));
+    }
+
+    @Test
+    void wordCharactersAndApostrophes() throws IOException {
+        assertEquals(List.of("well-known@0", "rock'n'roll@11", "quoted@24", "end@32"),
+                tokens(new ChunkedReader("well-known rock'n'roll 'quoted' end'", 2), "-"));
+    }
+
+    @Test
+    void surrogatePairsAreReadAsCodePoints() throws IOException {
+        // U+1D49C is a letter outside the Basic Multilingual Plane
+        String text = "\uD835\uDC9Cbc d ab\uD800cd";
+        List<String> expected = List.of("\uD835\uDC9Cbc@0", "d@5", "ab@7", "cd@10");
+        for (int chunk = 1; chunk <= 4; chunk++) {
+            assertEquals(expected, tokens(new ChunkedReader(text, chunk)), "chunks of " + chunk);
+        }
+    }
+
+    @Test
+    void sameWordsAsTheTokenizer() throws IOException {
+        String[] texts = { "Hello, world!", "well-known rock'n'roll 'quoted' end'",
+                "\u65E5\u672C\u8A9E\u3002\u65E5\u672C\u8A9E", "x1y2 3z",
+                "\u00E9t\u00E9 e\u0301t\u0301e", "--a--b--", "" };
+        WordTokenizer wordTokenizer = new WordTokenizer(null);
+        for (String text : texts) {
+            List<String> expected = new ArrayList<>();
+            wordTokenizer.tokenize(text, (start, end) -> expected.add(text.substring(start, end) + "@" + start));
+            for (int chunk = 1; chunk <= 4; chunk++) {
+                assertEquals(expected, tokens(new ChunkedReader(text, chunk)), text);
+            }
+        }
+    }
+
+    private static List<String> tokens(Reader reader) throws IOException {
+        return tokens(reader, null);
+    }
+
+    private static List<String> tokens(Reader reader, String wordCharacters) throws IOException {
+        List<String> result = new ArrayList<>();
+        ReaderTokenizer tokenizer = new ReaderTokenizer(reader, new WordTokenizer(wordCharacters));
+        while (tokenizer.next()) {
+            result.add(tokenizer.getWord() + "@" + tokenizer.getOffset());
+        }
+        return result;
+    }
+
+    /**
+     * Returns at most a few characters per read, and no characters at all on
+     * every third call, like some network readers.
+     */
+    private static class ChunkedReader extends Reader {
+
+        private final String text;
+        private final int chunk;
+        private int position;
+        private int calls;
+
+        ChunkedReader(String text, int chunk) {
+            this.text = text;
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position == text.length()) {
+                return -1;
+            }
+            if (++calls % 3 == 0) {
+                return 0;
+            }
+            int count = Math.min(Math.min(chunk, length), text.length() - position);
+            text.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+            // nothing to release
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class SpellCheckerTest {
+
+    private static SpellChecker checker;
+
+    @BeforeAll
+    static void load() throws IOException {
+        checker = new SpellChecker(Fixtures.LANGUAGE, Fixtures.folder().getAbsolutePath());
+    }
+
+    @Test
+    void eachTextGetsItsOwnVerdicts() {
+        List<String> texts = List.of("teh work", "", "wrok, wrok, teh.", "Paris played happily.", "   ",
+                "teh work");
+        List<Map<String, String[]>> results = checker.checkAll(texts);
+        assertEquals(texts.size(), results.size());
+        assertEquals(Set.of("teh"), results.get(0).keySet());
+        assertEquals(Set.of(), results.get(1).keySet());
+        assertEquals(Set.of("wrok", "teh"), results.get(2).keySet());
+        assertEquals(Set.of(), results.get(3).keySet());
+        assertEquals(Set.of(), results.get(4).keySet());
+        assertEquals(Set.of("teh"), results.get(5).keySet());
+        assertArrayEquals(new String[] { "the" }, results.get(0).get("teh"));
+        assertArrayEquals(new String[] { "work" }, results.get(2).get("wrok"));
+    }
+
+    @Test
+    void resultsAreTheSameAsCheckString() {
+        List<String> texts = List.of("teh work", "helo Paris", "", "happyest tryed bkae", "Work WORK wOrk");
+        List<Map<String, String[]>> results = checker.checkAll(texts);
+        for (int i = 0; i < texts.size(); i++) {
+            Map<String, String[]> expected = checker.checkString(texts.get(i));
+            Map<String, String[]> actual = results.get(i);
+            assertEquals(expected.keySet(), actual.keySet(), texts.get(i));
+            for (String word : expected.keySet()) {
+                assertArrayEquals(expected.get(word), actual.get(word), word);
+            }
+        }
+    }
+
+    @Test
+    void repeatedWordsGetSeparateArrays() {
+        List<Map<String, String[]>> results = checker.checkAll(List.of("teh", "teh"));
+        assertArrayEquals(results.get(0).get("teh"), results.get(1).get("teh"));
+        assertNotSame(results.get(0).get("teh"), results.get(1).get("teh"));
+    }
+
+    @Test
+    void emptyBatches() {
+        assertEquals(List.of(), checker.checkAll(List.of()));
+        assertEquals(List.of(Map.of(), Map.of()), checker.checkAll(List.of("", " \n ")));
+    }
+}
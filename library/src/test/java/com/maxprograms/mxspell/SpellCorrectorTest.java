@@ -0,0 +1,73 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class SpellCorrectorTest {
+
+    private static final String[] MISSPELLINGS = { "teh", "helo", "wrok", "wokr", "tryed", "hapy", "bkae",
+            "Pariss", "workplay", "xqzj" };
+
+    private static SpellCorrector corrector;
+
+    @BeforeAll
+    static void load() {
+        corrector = new SpellCorrector(Fixtures.load(), Fixtures.LANGUAGE);
+    }
+
+    @Test
+    void suggestionsAreReturned() {
+        assertArrayEquals(new String[] { "the" }, corrector.suggest("teh"));
+        assertArrayEquals(new String[] { "help", "hello" }, corrector.suggest("helo"));
+    }
+
+    @Test
+    void wordsWithoutSuggestionsAreReturnedAsIs() {
+        assertArrayEquals(new String[] { "xqzj" }, corrector.suggest("xqzj"));
+        assertArrayEquals(new String[] { "xqzj" }, corrector.suggest("xqzj", 5));
+    }
+
+    @Test
+    void correctWordsHaveNoSuggestions() {
+        for (String word : new String[] { "the", "work", "worked", "unhappiest", "Paris", "HELLO" }) {
+            assertArrayEquals(new String[0], corrector.suggest(word), word);
+            assertArrayEquals(new String[0], corrector.suggest(word, 5), word);
+        }
+    }
+
+    @Test
+    void unrankedAndRankedSuggestionsAreTheSame() {
+        for (String word : MISSPELLINGS) {
+            assertEquals(Set.of(corrector.suggest(word)), Set.of(corrector.suggest(word, Integer.MAX_VALUE)), word);
+        }
+    }
+
+    @Test
+    void rankedSuggestionsAreCutAtTheLimit() {
+        // a doubled letter costs less than another insertion
+        assertArrayEquals(new String[] { "hello", "help" }, corrector.suggest("helo", 10));
+        assertArrayEquals(new String[] { "work play" }, corrector.suggest("workplay", 10));
+        for (String word : MISSPELLINGS) {
+            String[] all = corrector.suggest(word, Integer.MAX_VALUE);
+            String[] best = corrector.suggest(word, 2);
+            assertEquals(Math.min(2, all.length), best.length, word);
+            for (int i = 0; i < best.length; i++) {
+                assertEquals(all[i], best[i], word);
+            }
+        }
+    }
+}
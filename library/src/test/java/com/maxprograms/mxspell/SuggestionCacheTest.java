@@ -0,0 +1,76 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SuggestionCacheTest {
+
+    @TempDir
+    File dataFolder;
+
+    @Test
+    void entriesOfAnOldGenerationAreDropped() {
+        SuggestionCache cache = new SuggestionCache(100, 100_000);
+        cache.put("wrok", new String[] { "work" }, 1);
+        assertArrayEquals(new String[] { "work" }, cache.get("wrok", 1));
+        assertNull(cache.get("wrok", 2));
+        assertNull(cache.get("wrok", 1));
+
+        SuggestionCache.Statistics statistics = cache.getStatistics();
+        assertEquals(1, statistics.hits());
+        assertEquals(2, statistics.misses());
+        assertEquals(0, statistics.size());
+        assertEquals(0, statistics.weight());
+    }
+
+    @Test
+    void cachedArraysAreCopies() {
+        SuggestionCache cache = new SuggestionCache(100, 100_000);
+        String[] suggestions = { "work" };
+        cache.put("wrok", suggestions, 1);
+        suggestions[0] = "changed";
+        cache.get("wrok", 1)[0] = "changed";
+        assertArrayEquals(new String[] { "work" }, cache.get("wrok", 1));
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvicted() {
+        // the smallest cache keeps one word per segment
+        SuggestionCache cache = new SuggestionCache(1, 0);
+        for (int i = 0; i < 100; i++) {
+            cache.put("word" + i, new String[] { "word" }, 1);
+        }
+        SuggestionCache.Statistics statistics = cache.getStatistics();
+        assertEquals(100, statistics.size() + statistics.evictions());
+        assertTrue(statistics.size() <= 16);
+    }
+
+    @Test
+    void learnedWordsInvalidateTheCache() throws IOException {
+        SpellChecker checker = new SpellChecker(Fixtures.LANGUAGE, Fixtures.folder().getAbsolutePath(), dataFolder);
+        checker.setSuggestionCache(new SuggestionCache(100, 100_000));
+        String[] suggestions = checker.suggest("wrok");
+        assertArrayEquals(suggestions, checker.suggest("wrok"));
+        assertEquals(1, checker.getSuggestionCache().getStatistics().hits());
+
+        checker.learn("wrok");
+        assertArrayEquals(new String[] {}, checker.suggest("wrok"));
+    }
+}
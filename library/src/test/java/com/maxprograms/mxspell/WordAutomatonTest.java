@@ -0,0 +1,68 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+class WordAutomatonTest {
+
+    private static final String[] QUERIES = { "wrok", "wokr", "wor", "worrk", "tyr", "hapy", "hapyp", "bkae",
+            "paly", "happinesss", "unhappines", "xyz", "a", "" };
+
+    @Test
+    void theAutomatonStoresTheSameWords() {
+        WordStore store = Fixtures.load().getWordStore();
+        WordAutomaton automaton = WordAutomaton.build(store);
+        assertEquals(store.size(), automaton.size());
+        store.forEach((key, entry) -> {
+            DictionaryEntry stored = automaton.get(key);
+            assertEquals(entry.getWord(), stored.getWord(), key);
+        });
+        assertNull(automaton.get("wrok"));
+        assertNull(automaton.get("wor"));
+    }
+
+    @Test
+    void searchFindsTheSameWordsAsAFullScan() {
+        WordStore store = Fixtures.load().getWordStore();
+        WordAutomaton automaton = WordAutomaton.build(store);
+        List<String> keys = new ArrayList<>();
+        store.forEach((key, entry) -> keys.add(key));
+        for (int distance = 1; distance <= 3; distance++) {
+            for (String query : QUERIES) {
+                Map<String, Integer> expected = new TreeMap<>();
+                for (String key : keys) {
+                    int d = EditDistance.distance(query, key, distance);
+                    if (d <= distance) {
+                        expected.put(key, d);
+                    }
+                }
+                Map<String, Integer> found = new TreeMap<>();
+                automaton.search(query, distance, found::put);
+                assertEquals(expected, found, query + " at distance " + distance);
+            }
+        }
+    }
+
+    @Test
+    void swappedCharactersCountAsOneEdit() {
+        Dictionary dictionary = Fixtures.load();
+        assertEquals(List.of("work"), dictionary.getWordsWithin("wokr", 1));
+        assertEquals(List.of("work"), dictionary.getWordsWithin("owrk", 1));
+    }
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WordJournalTest {
+
+    @TempDir
+    File folder;
+
+    @Test
+    void learnedWordsAreAppended() throws IOException {
+        Dictionary dictionary = Fixtures.load();
+        dictionary.setDataFolder(folder);
+        dictionary.learn("mxspell");
+        dictionary.learnAll(List.of("maxprograms", "mxspell", "hunspell"));
+        dictionary.ignore("xliff");
+        assertNotNull(dictionary.lookup("hunspell"));
+        assertNotNull(dictionary.lookup("xliff"));
+        dictionary.flush();
+
+        // one line per word, duplicates are not written again
+        assertEquals(List.of("mxspell", "maxprograms", "hunspell"), lines("learned.txt"));
+        assertEquals(List.of("xliff"), lines("ignored.txt"));
+    }
+
+    @Test
+    void savedWordsAreReadBack() throws IOException {
+        Files.write(new File(folder, "learned.txt").toPath(), List.of("mxspell", "hunspell"));
+        Dictionary dictionary = Fixtures.load();
+        dictionary.setDataFolder(folder);
+        assertNotNull(dictionary.lookup("mxspell"));
+        assertNotNull(dictionary.lookup("hunspell"));
+        assertNull(dictionary.lookup("maxprograms"));
+    }
+
+    @Test
+    void filesWithManyDuplicatesAreRewritten() throws IOException {
+        List<String> duplicated = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            duplicated.add("word" + i % 10);
+        }
+        Files.write(new File(folder, "learned.txt").toPath(), duplicated);
+        Dictionary dictionary = Fixtures.load();
+        dictionary.setDataFolder(folder);
+        dictionary.learn("mxspell");
+        dictionary.flush();
+
+        List<String> lines = lines("learned.txt");
+        assertEquals(11, lines.size());
+        assertEquals(11, lines.stream().distinct().count());
+    }
+
+    @Test
+    void wordsAreKeptWhenTheFileCannotBeWritten() throws IOException {
+        // a file where the data folder should be
+        File blocked = new File(folder, "blocked");
+        Files.write(blocked.toPath(), List.of());
+        WordJournal journal = WordJournal.open(new File(blocked, "learned.txt"));
+        journal.add("mxspell");
+        journal.flush();
+        assertEquals(1, journal.size());
+
+        Files.delete(blocked.toPath());
+        journal.flush();
+        assertEquals(List.of("mxspell"), lines("blocked/learned.txt"));
+    }
+
+    @Test
+    void sameFileSharesOneJournal() {
+        WordJournal journal = WordJournal.open(new File(folder, "learned.txt"));
+        assertSame(journal, WordJournal.open(new File(new File(folder, "."), "learned.txt")));
+    }
+
+    private List<String> lines(String name) throws IOException {
+        return Files.readAllLines(new File(folder, name).toPath(), StandardCharsets.UTF_8);
+    }
+}
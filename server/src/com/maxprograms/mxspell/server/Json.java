@@ -0,0 +1,202 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell.server;
+
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.maxprograms.mxspell.SpellChecker.Misspelling;
+
+/**
+ * The little JSON the server needs: writing strings, arrays and objects of
+ * suggestions, and reading an array of strings.
+ */
+final class Json {
+
+    private Json() {
+        // static methods only
+    }
+
+    static void appendString(StringBuilder builder, String value) {
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+            }
+        }
+        builder.append('"');
+    }
+
+    static void appendArray(StringBuilder builder, String[] values) {
+        builder.append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            appendString(builder, values[i]);
+        }
+        builder.append(']');
+    }
+
+    static void appendSuggestions(StringBuilder builder, Map<String, String[]> suggestions) {
+        builder.append('{');
+        boolean first = true;
+        for (Map.Entry<String, String[]> entry : suggestions.entrySet()) {
+            if (!first) {
+                builder.append(',');
+            }
+            first = false;
+            appendString(builder, entry.getKey());
+            builder.append(':');
+            appendArray(builder, entry.getValue());
+        }
+        builder.append('}');
+    }
+
+    static void appendMisspelling(StringBuilder builder, Misspelling misspelling) {
+        builder.append("{\"word\":");
+        appendString(builder, misspelling.word());
+        builder.append(",\"offset\":").append(misspelling.offset());
+        builder.append(",\"length\":").append(misspelling.length()).append('}');
+    }
+
+    static String error(String message) {
+        StringBuilder builder = new StringBuilder("{\"error\":");
+        appendString(builder, message);
+        return builder.append('}').toString();
+    }
+
+    /**
+     * Parses a JSON array of strings.
+     *
+     * @param text the JSON text
+     * @return the strings
+     * @throws IOException if the text is not an array of strings
+     */
+    static List<String> parseStringArray(String text) throws IOException {
+        List<String> result = new ArrayList<>();
+        int[] position = { skipSpaces(text, 0) };
+        expect(text, position, '[');
+        position[0] = skipSpaces(text, position[0]);
+        if (position[0] < text.length() && text.charAt(position[0]) == ']') {
+            position[0]++;
+        } else {
+            while (true) {
+                result.add(parseString(text, position));
+                position[0] = skipSpaces(text, position[0]);
+                if (position[0] < text.length() && text.charAt(position[0]) == ',') {
+                    position[0] = skipSpaces(text, position[0] + 1);
+                    continue;
+                }
+                expect(text, position, ']');
+                break;
+            }
+        }
+        if (skipSpaces(text, position[0]) != text.length()) {
+            throw syntaxError(position[0]);
+        }
+        return result;
+    }
+
+    private static String parseString(String text, int[] position) throws IOException {
+        expect(text, position, '"');
+        StringBuilder builder = new StringBuilder();
+        int i = position[0];
+        while (i < text.length()) {
+            char c = text.charAt(i++);
+            if (c == '"') {
+                position[0] = i;
+                return builder.toString();
+            }
+            if (c != '\\') {
+                builder.append(c);
+                continue;
+            }
+            if (i == text.length()) {
+                break;
+            }
+            char escaped = text.charAt(i++);
+            switch (escaped) {
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'u':
+                    if (i + 4 > text.length()) {
+                        throw syntaxError(i);
+                    }
+                    try {
+                        builder.append((char) Integer.parseInt(text.substring(i, i + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw syntaxError(i);
+                    }
+                    i += 4;
+                    break;
+                default:
+                    builder.append(escaped);
+            }
+        }
+        throw syntaxError(text.length());
+    }
+
+    private static void expect(String text, int[] position, char c) throws IOException {
+        if (position[0] >= text.length() || text.charAt(position[0]) != c) {
+            throw syntaxError(position[0]);
+        }
+        position[0]++;
+    }
+
+    private static int skipSpaces(String text, int position) {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static IOException syntaxError(int position) {
+        MessageFormat mf = new MessageFormat(Messages.getString("SpellServer.0"));
+        return new IOException(mf.format(new Object[] { "" + position }));
+    }
+}
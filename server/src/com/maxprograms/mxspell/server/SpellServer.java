@@ -0,0 +1,295 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.maxprograms.mxspell.SpellChecker;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Spell checking service over HTTP, built on the server included in the JDK.
+ * All responses are JSON encoded in UTF-8:
+ * <ul>
+ * <li>{@code POST /check?lang=en} checks the text in the request body, read
+ * as it arrives, and returns
+ * {@code {"misspellings":[{"word":"wrok","offset":6,"length":4}]}}.</li>
+ * <li>{@code GET /suggest?lang=en&word=wrok&max=5} returns
+ * {@code {"word":"wrok","suggestions":["work"]}}; {@code max} is optional.
+ * Concurrent requests are grouped in batches, see {@link SuggestBatcher}.</li>
+ * <li>{@code POST /batch?lang=en} takes a JSON array of texts and returns an
+ * array with the misspelled words of each text and their suggestions, see
+ * {@link SpellChecker#checkAll(List)}.</li>
+ * </ul>
+ * Dictionaries are loaded on first use and shared by all requests. Requests
+ * run on virtual threads when the JDK provides them and on a cached thread
+ * pool otherwise. Connections are kept alive between requests.
+ * <p>
+ * Applications that embed the server should start the JVM with
+ * {@code -Dsun.net.httpserver.nodelay=true}; without TCP_NODELAY the small
+ * responses of a kept-alive connection wait for delayed ACKs, about 40 ms
+ * each. The property applies to every server of the JDK in the process, so
+ * only {@link #main(String[])} sets it.
+ */
+public final class SpellServer {
+
+    private static final Logger logger = System.getLogger(SpellServer.class.getName());
+
+    private static final int MAX_BODY = 16 * 1024 * 1024;
+    private static final String JSON = "application/json; charset=UTF-8";
+    private static final String NODELAY = "sun.net.httpserver.nodelay";
+    // seconds a request waits for its suggestions
+    private static final long SUGGEST_TIMEOUT = 30;
+
+    private interface Handler {
+        String handle(HttpExchange exchange, SpellChecker checker, Map<String, String> parameters)
+                throws IOException;
+    }
+
+    private final String dictionaryFolder;
+    private final ExecutorService executor;
+    private final HttpServer server;
+    private final Map<String, SpellChecker> checkers = new ConcurrentHashMap<>();
+    private final Map<String, SuggestBatcher> batchers = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a server. Call {@link #start()} to accept requests.
+     *
+     * @param dictionaryFolder folder that contains the dictionaries
+     * @param address          address to listen on; port 0 selects a free port
+     * @throws IOException if the address cannot be used
+     */
+    public SpellServer(String dictionaryFolder, InetSocketAddress address) throws IOException {
+        this.dictionaryFolder = dictionaryFolder;
+        executor = newExecutor();
+        server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+        server.createContext("/check", exchange -> handle(exchange, "POST", this::check));
+        server.createContext("/suggest", exchange -> handle(exchange, "GET", this::suggest));
+        server.createContext("/batch", exchange -> handle(exchange, "POST", this::batch));
+    }
+
+    /**
+     * Creates an executor that starts a virtual thread per task. Virtual
+     * threads are looked up by reflection, so the server also runs on JDKs
+     * that do not have them.
+     */
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "mxspell-server");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and closes the server.
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        try (exchange) {
+            if (!method.equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", method);
+                send(exchange, 405, Json.error(exchange.getRequestMethod()));
+                return;
+            }
+            String response;
+            try {
+                Map<String, String> parameters = getParameters(exchange.getRequestURI().getRawQuery());
+                response = handler.handle(exchange, getChecker(parameters), parameters);
+            } catch (IOException e) {
+                send(exchange, 400, Json.error(e.getMessage()));
+                return;
+            } catch (RuntimeException e) {
+                logger.log(Level.ERROR, e.getMessage(), e);
+                send(exchange, 500, Json.error(String.valueOf(e.getMessage())));
+                return;
+            }
+            send(exchange, 200, response);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    private static Map<String, String> getParameters(String query) {
+        Map<String, String> result = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return result;
+        }
+        for (String pair : query.split("&")) {
+            int index = pair.indexOf('=');
+            String name = index == -1 ? pair : pair.substring(0, index);
+            String value = index == -1 ? "" : pair.substring(index + 1);
+            result.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return result;
+    }
+
+    private static String getParameter(Map<String, String> parameters, String name) throws IOException {
+        String value = parameters.get(name);
+        if (value == null || value.isEmpty()) {
+            MessageFormat mf = new MessageFormat(Messages.getString("SpellServer.1"));
+            throw new IOException(mf.format(new Object[] { name }));
+        }
+        return value;
+    }
+
+    private SpellChecker getChecker(Map<String, String> parameters) throws IOException {
+        String language = getParameter(parameters, "lang");
+        try {
+            return checkers.computeIfAbsent(language, lang -> {
+                try {
+                    return new SpellChecker(lang, dictionaryFolder);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private String check(HttpExchange exchange, SpellChecker checker, Map<String, String> parameters)
+            throws IOException {
+        StringBuilder builder = new StringBuilder("{\"misspellings\":[");
+        try (InputStream input = exchange.getRequestBody()) {
+            checker.check(input, StandardCharsets.UTF_8, misspelling -> {
+                if (builder.charAt(builder.length() - 1) != '[') {
+                    builder.append(',');
+                }
+                Json.appendMisspelling(builder, misspelling);
+            });
+        }
+        return builder.append("]}").toString();
+    }
+
+    private String suggest(HttpExchange exchange, SpellChecker checker, Map<String, String> parameters)
+            throws IOException {
+        String word = getParameter(parameters, "word");
+        int max = 0;
+        if (parameters.containsKey("max")) {
+            try {
+                max = Integer.parseInt(parameters.get("max"));
+            } catch (NumberFormatException e) {
+                MessageFormat mf = new MessageFormat(Messages.getString("SpellServer.4"));
+                throw new IOException(mf.format(new Object[] { parameters.get("max") }));
+            }
+        }
+        SuggestBatcher batcher = batchers.computeIfAbsent(parameters.get("lang"),
+                lang -> new SuggestBatcher(checker, executor));
+        String[] suggestions;
+        try {
+            suggestions = batcher.suggest(word, max).get(SUGGEST_TIMEOUT, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            MessageFormat mf = new MessageFormat(Messages.getString("SpellServer.6"));
+            throw new IllegalStateException(mf.format(new Object[] { word, "" + SUGGEST_TIMEOUT }));
+        }
+        StringBuilder builder = new StringBuilder("{\"word\":");
+        Json.appendString(builder, word);
+        builder.append(",\"suggestions\":");
+        Json.appendArray(builder, suggestions);
+        return builder.append('}').toString();
+    }
+
+    private String batch(HttpExchange exchange, SpellChecker checker, Map<String, String> parameters)
+            throws IOException {
+        byte[] body;
+        try (InputStream input = exchange.getRequestBody()) {
+            body = input.readNBytes(MAX_BODY + 1);
+        }
+        if (body.length > MAX_BODY) {
+            MessageFormat mf = new MessageFormat(Messages.getString("SpellServer.3"));
+            throw new IOException(mf.format(new Object[] { "" + MAX_BODY }));
+        }
+        List<String> texts = Json.parseStringArray(new String(body, StandardCharsets.UTF_8));
+        List<Map<String, String[]>> results = checker.checkAll(texts);
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < results.size(); i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            Json.appendSuggestions(builder, results.get(i));
+        }
+        return builder.append(']').toString();
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            logger.log(Level.ERROR, Messages.getString("SpellServer.2"));
+            return;
+        }
+        if (System.getProperty(NODELAY) == null) {
+            // read when the first server is created
+            System.setProperty(NODELAY, "true");
+        }
+        try {
+            int port = args.length == 2 ? Integer.parseInt(args[1]) : 8040;
+            SpellServer spellServer = new SpellServer(args[0],
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            spellServer.start();
+            MessageFormat mf = new MessageFormat(Messages.getString("SpellServer.5"));
+            logger.log(Level.INFO, mf.format(new Object[] { spellServer.getAddress().toString() }));
+        } catch (IOException | NumberFormatException e) {
+            logger.log(Level.ERROR, e.getMessage());
+        }
+    }
+}
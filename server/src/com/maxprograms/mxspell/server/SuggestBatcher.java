@@ -0,0 +1,123 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell.server;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.maxprograms.mxspell.SpellChecker;
+
+/**
+ * Groups concurrent suggestion requests for one checker. Requests that arrive
+ * while a batch is being computed wait for the next batch; each batch computes
+ * every distinct word once, in parallel, and completes all the requests for
+ * it. A request that finds no batch running starts one at once, so a lightly
+ * loaded server adds no delay.
+ */
+final class SuggestBatcher {
+
+    private static final int MAX_BATCH = 256;
+
+    private record Key(String word, int max) {
+    }
+
+    private record Request(Key key, CompletableFuture<String[]> result) {
+    }
+
+    private final SpellChecker checker;
+    private final Executor executor;
+    private final Queue<Request> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    SuggestBatcher(SpellChecker checker, Executor executor) {
+        this.checker = checker;
+        this.executor = executor;
+    }
+
+    /**
+     * Requests suggestions for a word.
+     *
+     * @param word the word
+     * @param max  maximum number of suggestions, 0 for all
+     * @return the suggestions, when computed
+     */
+    CompletableFuture<String[]> suggest(String word, int max) {
+        CompletableFuture<String[]> result = new CompletableFuture<>();
+        pending.add(new Request(new Key(word, max), result));
+        if (running.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+        return result;
+    }
+
+    private void drain() {
+        try {
+            drainBatches();
+        } catch (Throwable e) {
+            running.set(false);
+            // requests queued meanwhile would wait for a batch that never runs
+            if (!pending.isEmpty() && running.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+            throw e;
+        }
+    }
+
+    private void drainBatches() {
+        while (true) {
+            Map<Key, List<CompletableFuture<String[]>>> batch = new LinkedHashMap<>();
+            Request request;
+            int count = 0;
+            while (count < MAX_BATCH && (request = pending.poll()) != null) {
+                batch.computeIfAbsent(request.key(), k -> new ArrayList<>()).add(request.result());
+                count++;
+            }
+            if (batch.isEmpty()) {
+                running.set(false);
+                // a request may have been added after the last poll
+                if (pending.isEmpty() || !running.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            try {
+                batch.entrySet().parallelStream().forEach(this::compute);
+            } catch (Throwable e) {
+                for (List<CompletableFuture<String[]>> futures : batch.values()) {
+                    futures.forEach(future -> future.completeExceptionally(e));
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void compute(Map.Entry<Key, List<CompletableFuture<String[]>>> entry) {
+        Key key = entry.getKey();
+        try {
+            String[] suggestions = key.max() > 0 ? checker.suggest(key.word(), key.max())
+                    : checker.suggest(key.word());
+            for (CompletableFuture<String[]> future : entry.getValue()) {
+                future.complete(suggestions.clone());
+            }
+        } catch (Throwable e) {
+            // errors too, or the requests for this word would never complete
+            for (CompletableFuture<String[]> future : entry.getValue()) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
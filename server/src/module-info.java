@@ -0,0 +1,16 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+module mxspell.server {
+
+   exports com.maxprograms.mxspell.server;
+
+   requires mxspell;
+   requires jdk.httpserver;
+}
@@ -0,0 +1,108 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SpellServerTest {
+
+    private SpellServer server;
+
+    @BeforeEach
+    void start() throws IOException, URISyntaxException {
+        URL dictionaries = SpellServerTest.class.getResource("/dictionaries");
+        server = new SpellServer(new File(dictionaries.toURI()).getAbsolutePath(),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop();
+    }
+
+    @Test
+    void checkReturnsMisspellings() throws IOException {
+        assertNotEquals(0, server.getAddress().getPort());
+        assertEquals("{\"misspellings\":[{\"word\":\"wrok\",\"offset\":5,\"length\":4}]}",
+                request("POST", "/check?lang=en", "play wrok"));
+    }
+
+    @Test
+    void suggestReturnsSuggestions() throws IOException {
+        assertEquals("{\"word\":\"wrok\",\"suggestions\":[\"work\"]}",
+                request("GET", "/suggest?lang=en&word=wrok&max=1", null));
+    }
+
+    @Test
+    void batchChecksEveryText() throws IOException {
+        assertEquals("[{\"wrok\":[\"work\"]},{}]",
+                request("POST", "/batch?lang=en", "[\"play wrok\",\"play work\"]"));
+    }
+
+    @Test
+    void missingParameterIsABadRequest() throws IOException {
+        HttpURLConnection connection = open("GET", "/suggest?lang=en");
+        try {
+            assertEquals(400, connection.getResponseCode());
+            // the message comes from the bundle of the server
+            String message = MessageFormat.format(Messages.getString("SpellServer.1"), "word");
+            assertNotEquals('!', message.charAt(0));
+            try (InputStream input = connection.getErrorStream()) {
+                assertEquals(Json.error(message), new String(input.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private HttpURLConnection open(String method, String path) throws IOException {
+        URL url = new URL("http", server.getAddress().getHostString(), server.getAddress().getPort(), path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        return connection;
+    }
+
+    private String request(String method, String path, String body) throws IOException {
+        HttpURLConnection connection = open(method, path);
+        try {
+            if (body != null) {
+                connection.setDoOutput(true);
+                try (OutputStream output = connection.getOutputStream()) {
+                    output.write(body.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            assertEquals(200, connection.getResponseCode());
+            assertEquals("application/json; charset=UTF-8", connection.getContentType());
+            try (InputStream input = connection.getInputStream()) {
+                return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
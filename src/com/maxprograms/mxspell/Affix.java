@@ -10,7 +10,9 @@
 package com.maxprograms.mxspell;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.TreeSet;
 
 public class Affix {
 
@@ -23,6 +25,11 @@ public class Affix {
     private int rulesCount;
     private List<AffixRule> rules;
 
+    // rules that can match a word, by its last (suffixes) or first (prefixes) character
+    private char[] indexKeys;
+    private List<List<AffixRule>> indexedRules;
+    private List<AffixRule> otherRules;
+
     public Affix(String type, String flag, String crossProduct, String count) throws NumberFormatException {
         this.type = type;
         this.flag = flag;
@@ -37,6 +44,59 @@ public class Affix {
     
     public void addRule(AffixRule rule) {
         rules.add(rule);
+        indexKeys = null;
+    }
+
+    /**
+     * Returns the rules whose condition accepts the given character at the end
+     * of a word (suffixes) or at its beginning (prefixes).
+     * 
+     * @param c last or first character of the word
+     * @return the rules that may apply to the word, in declaration order
+     */
+    public List<AffixRule> getRules(char c) {
+        if (indexKeys == null) {
+            buildIndex();
+        }
+        int i = Arrays.binarySearch(indexKeys, c);
+        return i >= 0 ? indexedRules.get(i) : otherRules;
+    }
+
+    void buildIndex() {
+        boolean last = SFX.equals(type);
+        TreeSet<Character> keys = new TreeSet<>();
+        for (AffixRule rule : rules) {
+            char[] set = rule.getClassAt(last);
+            if (set != null) {
+                for (char c : set) {
+                    keys.add(c);
+                }
+            }
+        }
+        char[] newKeys = new char[keys.size()];
+        List<List<AffixRule>> newRules = new ArrayList<>(keys.size());
+        int i = 0;
+        for (Character c : keys) {
+            newKeys[i] = c;
+            newRules.add(new ArrayList<>());
+            i++;
+        }
+        List<AffixRule> others = new ArrayList<>();
+        for (AffixRule rule : rules) {
+            char[] set = rule.getClassAt(last);
+            boolean negated = rule.isNegatedAt(last);
+            for (int j = 0; j < newKeys.length; j++) {
+                if (set == null || (Arrays.binarySearch(set, newKeys[j]) >= 0) != negated) {
+                    newRules.get(j).add(rule);
+                }
+            }
+            if (set == null || negated) {
+                others.add(rule);
+            }
+        }
+        otherRules = others;
+        indexedRules = newRules;
+        indexKeys = newKeys;
     }
 
     public List<AffixRule> getRules() {
@@ -0,0 +1,152 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Checks inflected words by removing affixes instead of generating all forms
+ * of every root. Suffix rules are stored in a trie keyed by the reversed affix
+ * and prefix rules in a trie keyed by the affix, so only the rules whose affix
+ * actually matches the word are visited.
+ */
+final class AffixChecker {
+
+    private static final class Rule {
+        final char flag;
+        final boolean crossProduct;
+        final boolean isPrefix;
+        final String strip;
+        final String affix;
+        final AffixRule rule;
+
+        Rule(Affix owner, char flag, AffixRule rule) {
+            this.flag = flag;
+            crossProduct = owner.isCrossProduct();
+            isPrefix = Affix.PFX.equals(owner.getType());
+            strip = "0".equals(rule.getStripChars()) ? "" : rule.getStripChars();
+            affix = rule.getAffix();
+            this.rule = rule;
+        }
+
+        boolean matches(String stem) {
+            return isPrefix ? rule.matchesStart(stem) : rule.matchesEnd(stem);
+        }
+    }
+
+    private static final class Node {
+        char[] labels = new char[0];
+        Node[] children = new Node[0];
+        List<Rule> rules = new ArrayList<>();
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(labels, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node addChild(char c) {
+            int i = Arrays.binarySearch(labels, c);
+            if (i >= 0) {
+                return children[i];
+            }
+            int pos = -i - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, pos);
+            System.arraycopy(children, 0, newChildren, 0, pos);
+            newLabels[pos] = c;
+            newChildren[pos] = new Node();
+            System.arraycopy(labels, pos, newLabels, pos + 1, labels.length - pos);
+            System.arraycopy(children, pos, newChildren, pos + 1, children.length - pos);
+            labels = newLabels;
+            children = newChildren;
+            return newChildren[pos];
+        }
+    }
+
+    // a prefix checked without a suffix
+    private static final char NO_FLAG = 0xFFFF;
+
+    private final Node suffixes = new Node();
+    private final Node prefixes = new Node();
+
+    AffixChecker(Affix[] affixes, char[] flags) {
+        for (int j = 0; j < affixes.length; j++) {
+            Affix affix = affixes[j];
+            boolean isPrefix = Affix.PFX.equals(affix.getType());
+            for (AffixRule affixRule : affix.getRules()) {
+                Rule rule = new Rule(affix, flags[j], affixRule);
+                Node node = isPrefix ? prefixes : suffixes;
+                String text = rule.affix;
+                int length = text.length();
+                for (int i = 0; i < length; i++) {
+                    node = node.addChild(text.charAt(isPrefix ? i : length - 1 - i));
+                }
+                node.rules.add(rule);
+            }
+        }
+    }
+
+    /**
+     * Finds the dictionary root of an inflected word.
+     *
+     * @param word   the word to check
+     * @param lookup function that returns the dictionary entry of a root
+     * @return the entry of the root that generates the word or null
+     */
+    DictionaryEntry check(String word, Function<String, DictionaryEntry> lookup) {
+        int length = word.length();
+        Node node = suffixes;
+        for (int i = 0; node != null && i < length; i++) {
+            for (Rule rule : node.rules) {
+                String stem = word.substring(0, length - i) + rule.strip;
+                if (rule.matches(stem)) {
+                    DictionaryEntry entry = lookup.apply(stem);
+                    if (entry != null && entry.hasFlag(rule.flag)) {
+                        return entry;
+                    }
+                    if (rule.crossProduct) {
+                        entry = checkPrefix(stem, rule.flag, lookup);
+                        if (entry != null) {
+                            return entry;
+                        }
+                    }
+                }
+            }
+            node = node.child(word.charAt(length - 1 - i));
+        }
+        return checkPrefix(word, NO_FLAG, lookup);
+    }
+
+    private DictionaryEntry checkPrefix(String word, char suffixFlag, Function<String, DictionaryEntry> lookup) {
+        int length = word.length();
+        Node node = prefixes;
+        for (int i = 0; node != null && i < length; i++) {
+            for (Rule rule : node.rules) {
+                if (suffixFlag != NO_FLAG && !rule.crossProduct) {
+                    continue;
+                }
+                String stem = rule.strip + word.substring(i);
+                if (rule.matches(stem)) {
+                    DictionaryEntry entry = lookup.apply(stem);
+                    if (entry != null && entry.hasFlag(rule.flag)
+                            && (suffixFlag == NO_FLAG || entry.hasFlag(suffixFlag))) {
+                        return entry;
+                    }
+                }
+            }
+            node = node.child(word.charAt(i));
+        }
+        return null;
+    }
+}
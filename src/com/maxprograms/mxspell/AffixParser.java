@@ -10,9 +10,12 @@
 package com.maxprograms.mxspell;
 
 import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.lang.System.Logger;
 import java.lang.System.Logger.Level;
 import java.nio.charset.Charset;
@@ -26,34 +29,153 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 public class AffixParser {
 
-    // Supported FLAG types
-    private static final String ASCII = "ASCII";
-    private static final String UTF8 = "UTF-8";
-    private static final String NUM = "num";
-    private static final String LONG = "long";
-
     private static final Logger logger = System.getLogger(AffixParser.class.getName());
     private Map<String, Affix> affixMap;
+    private AffixChecker affixChecker;
+
+    // affixes sorted by flag code, see FlagSet
+    private char[] affixCodes;
+    private Affix[] affixes;
+
+    // flag sets by their text in the .dic file, and the shared instances
+    private final Map<String, FlagSet> parsedFlags = new ConcurrentHashMap<>();
+    private final Map<FlagSet, FlagSet> flagSets = new ConcurrentHashMap<>();
 
     private char[] tryCharacters;
+    private Charset encoding;
     private String filename;
     private int lineNr;
 
-    private String flagType = ASCII;
+    private String flagType = FlagSet.ASCII;
     String compoundFlag;
     int compoundMinimalChars = -1;
     private Map<String, String> replacementMap;
     private int replacementSize;
+    // n-gram suggestions, -1 selects the defaults
+    private int maxNgramSuggestions = -1;
+    private int maxDiff = -1;
+    private boolean onlyMaxDiff;
+    private String wordCharacters;
+
+    // AF alias table, .dic entries refer to it by number
+    private List<String> flagAliasLines;
+    private int flagAliasSize;
+    private FlagSet[] flagAliases;
+    // AM lines are only counted, entries do not keep morphological data
+    private int morphAliasLines = -1;
+    private int morphAliasSize;
+
+    /**
+     * Parses an affix file read into memory. The encoding declared with SET is
+     * detected from the raw bytes and the same buffer is then decoded, so the
+     * file is read only once.
+     * 
+     * @param filename name of the affix file
+     * @param data     contents of the affix file
+     * @throws IOException if the file cannot be parsed
+     */
+    AffixParser(String filename, byte[] data) throws IOException {
+        this(filename, data, EncodingResolver.getEncoding(data, filename));
+    }
 
-    AffixParser(File file, Charset encoding) throws IOException {
-        this.filename = file.getName();
+    private AffixParser(String filename, byte[] data, Charset encoding) throws IOException {
+        this(filename, new InputStreamReader(new ByteArrayInputStream(data), encoding));
+        this.encoding = encoding;
+    }
+
+    AffixParser(String filename, Reader reader) throws IOException {
+        this.filename = filename;
         affixMap = new HashMap<>();
-        try (FileReader reader = new FileReader(file, encoding)) {
-            try (BufferedReader bufferedReader = new BufferedReader(reader)) {
-                parseAffixFile(bufferedReader);
+        try (BufferedReader bufferedReader = new BufferedReader(reader)) {
+            parseAffixFile(bufferedReader);
+        }
+    }
+
+    AffixParser(String filename, DataInput input) throws IOException {
+        this.filename = filename;
+        flagType = input.readUTF();
+        if (input.readBoolean()) {
+            tryCharacters = input.readUTF().toCharArray();
+        }
+        if (input.readBoolean()) {
+            compoundFlag = input.readUTF();
+        }
+        compoundMinimalChars = input.readInt();
+        replacementSize = input.readInt();
+        int replacements = input.readInt();
+        if (replacements >= 0) {
+            replacementMap = new HashMap<>();
+            for (int i = 0; i < replacements; i++) {
+                replacementMap.put(input.readUTF(), input.readUTF());
+            }
+        }
+        maxNgramSuggestions = input.readInt();
+        maxDiff = input.readInt();
+        onlyMaxDiff = input.readBoolean();
+        if (input.readBoolean()) {
+            wordCharacters = input.readUTF();
+        }
+        int affixes = input.readInt();
+        affixMap = new HashMap<>();
+        for (int i = 0; i < affixes; i++) {
+            String type = input.readUTF();
+            String flag = input.readUTF();
+            String crossProduct = input.readBoolean() ? "Y" : "N";
+            int rules = input.readInt();
+            Affix affix = new Affix(type, flag, crossProduct, "" + rules);
+            for (int j = 0; j < rules; j++) {
+                affix.addRule(new AffixRule(input.readUTF(), input.readUTF(), input.readUTF()));
+            }
+            affix.buildIndex();
+            affixMap.put(flag, affix);
+        }
+        buildTables();
+    }
+
+    void write(DataOutput output) throws IOException {
+        output.writeUTF(flagType);
+        output.writeBoolean(tryCharacters != null);
+        if (tryCharacters != null) {
+            output.writeUTF(new String(tryCharacters));
+        }
+        output.writeBoolean(compoundFlag != null);
+        if (compoundFlag != null) {
+            output.writeUTF(compoundFlag);
+        }
+        output.writeInt(compoundMinimalChars);
+        output.writeInt(replacementSize);
+        if (replacementMap == null) {
+            output.writeInt(-1);
+        } else {
+            output.writeInt(replacementMap.size());
+            for (Map.Entry<String, String> entry : replacementMap.entrySet()) {
+                output.writeUTF(entry.getKey());
+                output.writeUTF(entry.getValue());
+            }
+        }
+        output.writeInt(maxNgramSuggestions);
+        output.writeInt(maxDiff);
+        output.writeBoolean(onlyMaxDiff);
+        output.writeBoolean(wordCharacters != null);
+        if (wordCharacters != null) {
+            output.writeUTF(wordCharacters);
+        }
+        output.writeInt(affixMap.size());
+        for (Affix affix : affixMap.values()) {
+            output.writeUTF(affix.getType());
+            output.writeUTF(affix.getFlags());
+            output.writeBoolean(affix.isCrossProduct());
+            List<AffixRule> rules = affix.getRules();
+            output.writeInt(rules.size());
+            for (AffixRule rule : rules) {
+                output.writeUTF(rule.getStripChars());
+                output.writeUTF(rule.getAffix());
+                output.writeUTF(rule.getCondition());
             }
         }
     }
@@ -68,7 +190,10 @@ public class AffixParser {
             lineNr++;
             line = line.strip();
             String[] parts = line.split("\\s+");
-            if (parts.length > 1) {
+            if (parts.length == 1 && "ONLYMAXDIFF".equals(parts[0])) {
+                // the only option without arguments
+                onlyMaxDiff = true;
+            } else if (parts.length > 1) {
                 String tag = parts[0];
                 switch (tag) {
                     case "#":
@@ -123,7 +248,7 @@ public class AffixParser {
                         // handle KEY
                         break;
                     case "WORDCHARS":
-                        // handle WORDCHARS
+                        wordCharacters = parts[1];
                         break;
                     case "OCONV":
                         // handle OCONV
@@ -138,13 +263,16 @@ public class AffixParser {
                         // handle NOSPLITSUGS
                         break;
                     case "MAXNGRAMSUGS":
-                        // handle MAXNGRAMSUGS
+                        maxNgramSuggestions = Math.max(Integer.parseInt(parts[1]), 0);
                         break;
                     case "ONLYMAXDIFF":
-                        // handle ONLYMAXDIFF
+                        onlyMaxDiff = true;
                         break;
                     case "MAXDIFF":
-                        // handle MAXDIFF
+                        maxDiff = Integer.parseInt(parts[1]);
+                        if (maxDiff < 0 || maxDiff > 10) {
+                            maxDiff = -1;
+                        }
                         break;
                     case "ICONV":
                         // handle ICONV
@@ -219,10 +347,20 @@ public class AffixParser {
                         // handle LEMMA_PRESENT (only in "hu")
                         break;
                     case "AF":
-                        // handle AF
+                        if (flagAliasLines == null) {
+                            flagAliasSize = Integer.parseInt(parts[1]);
+                            flagAliasLines = new ArrayList<>();
+                        } else {
+                            flagAliasLines.add(parts[1]);
+                        }
                         break;
                     case "AM":
-                        // handle AM
+                        if (morphAliasLines == -1) {
+                            morphAliasSize = Integer.parseInt(parts[1]);
+                            morphAliasLines = 0;
+                        } else {
+                            morphAliasLines++;
+                        }
                         break;
                     case "NAME":
                         // handle NAME
@@ -293,6 +431,23 @@ public class AffixParser {
             Object[] args = { filename, "" + replacementMap.size(), "" + replacementSize };
             throw new IOException(mf.format(args));
         }
+        if (flagAliasLines != null) {
+            if (flagAliasSize != flagAliasLines.size()) {
+                MessageFormat mf = new MessageFormat(Messages.getString("AffixParser.11"));
+                Object[] args = { filename, "AF", "" + flagAliasLines.size(), "" + flagAliasSize };
+                throw new IOException(mf.format(args));
+            }
+            flagAliases = new FlagSet[flagAliasLines.size()];
+            for (int i = 0; i < flagAliases.length; i++) {
+                flagAliases[i] = parseFlags(flagAliasLines.get(i));
+            }
+            flagAliasLines = null;
+        }
+        if (morphAliasLines != -1 && morphAliasSize != morphAliasLines) {
+            MessageFormat mf = new MessageFormat(Messages.getString("AffixParser.11"));
+            Object[] args = { filename, "AM", "" + morphAliasLines, "" + morphAliasSize };
+            throw new IOException(mf.format(args));
+        }
         Set<String> keySet = affixMap.keySet();
         Iterator<String> it = keySet.iterator();
         while (it.hasNext()) {
@@ -303,13 +458,33 @@ public class AffixParser {
                 Object[] args = { filename, key };
                 throw new IOException(mf.format(args));
             }
+            affix.buildIndex();
         }
+        buildTables();
+    }
+
+    private void buildTables() throws IOException {
+        List<Affix> sorted = new ArrayList<>(affixMap.values());
+        sorted.sort((a, b) -> Character.compare(encodeFlag(a.getFlags()), encodeFlag(b.getFlags())));
+        affixCodes = new char[sorted.size()];
+        affixes = new Affix[sorted.size()];
+        for (int i = 0; i < affixes.length; i++) {
+            affixes[i] = sorted.get(i);
+            affixCodes[i] = encodeFlag(affixes[i].getFlags());
+            if (i > 0 && affixCodes[i] == affixCodes[i - 1]) {
+                // such as 1 and 01 with numeric flags
+                MessageFormat mf = new MessageFormat(Messages.getString("AffixParser.10"));
+                Object[] args = { filename, affixes[i - 1].getFlags(), affixes[i].getFlags() };
+                throw new IOException(mf.format(args));
+            }
+        }
+        affixChecker = new AffixChecker(affixes, affixCodes);
     }
 
     private void handleFlag(String line) throws IOException {
         StringTokenizer tokenizer = new StringTokenizer(line.substring("FLAG".length()));
         flagType = tokenizer.nextToken();
-        List<String> validFlags = Arrays.asList(ASCII, UTF8, NUM, LONG);
+        List<String> validFlags = Arrays.asList(FlagSet.ASCII, FlagSet.UTF8, FlagSet.NUM, FlagSet.LONG);
         if (!validFlags.contains(flagType)) {
             MessageFormat mf = new MessageFormat(Messages.getString("AffixParser.6"));
             Object[] args = { filename, "" + lineNr, flagType };
@@ -348,8 +523,20 @@ public class AffixParser {
                     throw new IOException(mf.format(args));
                 }
             }
+            if (affix.indexOf('/') != -1) {
+                // continuation flags are not supported, keep the affix text
+                affix = affix.substring(0, affix.indexOf('/'));
+            }
+            if ("0".equals(affix)) {
+                affix = "";
+            }
             affixMap.get(flag).addRule(new AffixRule(stripChars, affix, condition));
         } else {
+            if (encodeFlag(flag) == FlagSet.UNKNOWN) {
+                MessageFormat mf = new MessageFormat(Messages.getString("AffixParser.9"));
+                Object[] args = { filename, "" + lineNr, flag, flagType };
+                throw new IOException(mf.format(args));
+            }
             String crossProduct = tokenizer.nextToken();
             String count = tokenizer.nextToken();
             affixMap.put(flag, new Affix(type, flag, crossProduct, count));
@@ -357,60 +544,143 @@ public class AffixParser {
     }
 
     public String[] getFlags(String affix) {
-        if (UTF8.equals(flagType) || ASCII.equals(flagType)) {
-            String[] flags = new String[affix.length()];
-            for (int i = 0; i < affix.length(); i++) {
-                flags[i] = "" + affix.charAt(i);
+        return getFlagSet(affix).getNames().clone();
+    }
+
+    /**
+     * Returns the shared flag set for the flags of a .dic entry. Safe to call from
+     * several threads.
+     * 
+     * @param flags the flags as written after '/' in the .dic file
+     * @return the flag set
+     */
+    FlagSet getFlagSet(String flags) {
+        FlagSet set = parsedFlags.get(flags);
+        if (set == null) {
+            set = parsedFlags.computeIfAbsent(flags, flagAliases != null ? this::resolveAlias : this::parseFlags);
+        }
+        return set;
+    }
+
+    private FlagSet resolveAlias(String alias) {
+        try {
+            int index = Integer.parseInt(alias);
+            if (index >= 1 && index <= flagAliases.length) {
+                return flagAliases[index - 1];
             }
-            return flags;
+        } catch (NumberFormatException e) {
+            // reported below
         }
-        if (LONG.equals(flagType)) {
-            String[] flags = new String[affix.length() / 2];
-            for (int i = 0; i < affix.length() / 2; i += 2) {
-                flags[i] = "" + affix.charAt(i) + affix.charAt(i + 1);
+        MessageFormat mf = new MessageFormat(Messages.getString("AffixParser.12"));
+        Object[] args = { filename, alias };
+        logger.log(Level.WARNING, mf.format(args));
+        return FlagSet.EMPTY;
+    }
+
+    private FlagSet parseFlags(String flags) {
+        List<String> names = new ArrayList<>();
+        if (FlagSet.LONG.equals(flagType)) {
+            for (int i = 0; i + 1 < flags.length(); i += 2) {
+                names.add(flags.substring(i, i + 2));
             }
-            return flags;
+        } else if (FlagSet.NUM.equals(flagType)) {
+            for (String name : flags.split(",")) {
+                if (!name.isEmpty()) {
+                    names.add(name);
+                }
+            }
+        } else {
+            for (int i = 0; i < flags.length(); i++) {
+                names.add(String.valueOf(flags.charAt(i)));
+            }
+        }
+        char[] codes = new char[names.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = encodeFlag(names.get(i));
         }
-        if (NUM.equals(flagType)) {
-            return affix.split(",");
+        return intern(FlagSet.sorted(codes, names.toArray(new String[names.size()])));
+    }
+
+    /**
+     * Returns the shared flag set for a list of flag codes.
+     * 
+     * @param codes the flag codes
+     * @return the flag set
+     */
+    FlagSet getFlagSet(char[] codes) {
+        String[] names = new String[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            names[i] = decodeFlag(codes[i]);
         }
-        return new String[] {};
+        return intern(FlagSet.sorted(codes, names));
+    }
+
+    private FlagSet intern(FlagSet set) {
+        FlagSet shared = flagSets.putIfAbsent(set, set);
+        return shared != null ? shared : set;
+    }
+
+    char encodeFlag(String name) {
+        return FlagSet.encode(name, flagType);
+    }
+
+    private String decodeFlag(char code) {
+        if (FlagSet.LONG.equals(flagType)) {
+            return code > 0xFF ? "" + (char) (code >>> 8) + (char) (code & 0xFF) : String.valueOf(code);
+        }
+        if (FlagSet.NUM.equals(flagType)) {
+            return Integer.toString(code);
+        }
+        return String.valueOf(code);
+    }
+
+    Affix getAffix(char code) {
+        int i = Arrays.binarySearch(affixCodes, code);
+        return i >= 0 ? affixes[i] : null;
     }
 
     public List<String> getWords(String word, String[] flags) throws IOException {
         List<String> result = new ArrayList<>();
         for (int i = 0; i < flags.length; i++) {
-            String flag = flags[i];
-            Affix affix = affixMap.get(flag);
-            if (affix == null) {
-                MessageFormat mf = new MessageFormat(Messages.getString("AffixParser.8"));
-                Object[] args = { flag, word };
-                throw new IOException(mf.format(args));
-            }
-            List<String> processed = processRules(affix.getType(), word, affix.getRules());
-            result.addAll(processed);
+            result.addAll(getWords(word, encodeFlag(flags[i]), flags[i]));
         }
         return result;
     }
 
-    private List<String> processRules(String type, String word, List<AffixRule> rules) {
+    private List<String> getWords(String word, char code, String flag) throws IOException {
+        Affix affix = getAffix(code);
+        if (affix == null) {
+            MessageFormat mf = new MessageFormat(Messages.getString("AffixParser.8"));
+            Object[] args = { flag, word };
+            throw new IOException(mf.format(args));
+        }
+        return processRules(affix, word);
+    }
+
+    DictionaryEntry findRoot(String word, Function<String, DictionaryEntry> lookup) {
+        return affixChecker.check(word, lookup);
+    }
+
+    private List<String> processRules(Affix affix, String word) {
         List<String> result = new ArrayList<>();
-        Iterator<AffixRule> it = rules.iterator();
-        while (it.hasNext()) {
-            AffixRule rule = it.next();
-            String condition = rule.getCondition();
-            if (matchesCondition(type, word, condition)) {
+        if (word.isEmpty()) {
+            return result;
+        }
+        boolean isPrefix = Affix.PFX.equals(affix.getType());
+        List<AffixRule> rules = affix.getRules(isPrefix ? word.charAt(0) : word.charAt(word.length() - 1));
+        for (AffixRule rule : rules) {
+            if (isPrefix ? rule.matchesStart(word) : rule.matchesEnd(word)) {
                 String stripped = word;
                 String stripChars = rule.getStripChars();
                 if (!"0".equals(stripChars)) {
                     int length = stripChars.length();
-                    if (Affix.PFX.equals(type)) {
+                    if (isPrefix) {
                         stripped = word.substring(length);
                     } else {
                         stripped = stripped.substring(0, stripped.length() - length);
                     }
                 }
-                if (Affix.PFX.equals(type)) {
+                if (isPrefix) {
                     stripped = rule.getAffix() + stripped;
                 } else {
                     stripped = stripped + rule.getAffix();
@@ -423,12 +693,8 @@ public class AffixParser {
         return result;
     }
 
-    private boolean matchesCondition(String type, String word, String condition) {
-        if (".".equals(condition)) {
-            return true;
-        }
-        String regex = type.equals(Affix.PFX) ? "^" + condition + ".*" : ".*" + condition + "$";
-        return word.matches(regex);
+    Charset getEncoding() {
+        return encoding;
     }
 
     public Map<String, String> getReplacementMap() {
@@ -439,4 +705,20 @@ public class AffixParser {
         return tryCharacters;
     }
 
+    int getMaxNgramSuggestions() {
+        return maxNgramSuggestions;
+    }
+
+    int getMaxDiff() {
+        return maxDiff;
+    }
+
+    boolean isOnlyMaxDiff() {
+        return onlyMaxDiff;
+    }
+
+    String getWordCharacters() {
+        return wordCharacters;
+    }
+
 }
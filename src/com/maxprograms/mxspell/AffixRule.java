@@ -9,16 +9,120 @@
 *******************************************************************************/
 package com.maxprograms.mxspell;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 public class AffixRule {
 
     private String stripChars;
     private String affix;
     private String condition;
 
+    // compiled condition: one character class per position, null means any character
+    private char[][] classes;
+    private boolean[] negated;
+
     public AffixRule(String stripChars, String affix, String condition) {
         this.stripChars = stripChars;
         this.affix = affix;
         this.condition = condition;
+        compileCondition();
+    }
+
+    private void compileCondition() {
+        List<char[]> sets = new ArrayList<>();
+        List<Boolean> negations = new ArrayList<>();
+        if (!".".equals(condition)) {
+            int i = 0;
+            int length = condition.length();
+            while (i < length) {
+                char c = condition.charAt(i);
+                int close = c == '[' ? condition.indexOf(']', i + 1) : -1;
+                if (close != -1) {
+                    boolean negation = i + 1 < close && condition.charAt(i + 1) == '^';
+                    char[] set = condition.substring(negation ? i + 2 : i + 1, close).toCharArray();
+                    Arrays.sort(set);
+                    sets.add(set);
+                    negations.add(negation);
+                    i = close + 1;
+                } else {
+                    sets.add(c == '.' ? null : new char[] { c });
+                    negations.add(false);
+                    i++;
+                }
+            }
+        }
+        classes = sets.toArray(new char[sets.size()][]);
+        negated = new boolean[classes.length];
+        for (int i = 0; i < negated.length; i++) {
+            negated[i] = negations.get(i);
+        }
+    }
+
+    private boolean matches(int position, char c) {
+        char[] set = classes[position];
+        if (set == null) {
+            return true;
+        }
+        return (Arrays.binarySearch(set, c) >= 0) != negated[position];
+    }
+
+    /**
+     * Checks the condition against the beginning of a word, as required by
+     * prefixes.
+     *
+     * @param word the word to check
+     * @return true if the first characters of the word satisfy the condition
+     */
+    public boolean matchesStart(CharSequence word) {
+        if (word.length() < classes.length) {
+            return false;
+        }
+        for (int i = 0; i < classes.length; i++) {
+            if (!matches(i, word.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks the condition against the end of a word, as required by suffixes.
+     *
+     * @param word the word to check
+     * @return true if the last characters of the word satisfy the condition
+     */
+    public boolean matchesEnd(CharSequence word) {
+        int offset = word.length() - classes.length;
+        if (offset < 0) {
+            return false;
+        }
+        for (int i = 0; i < classes.length; i++) {
+            if (!matches(i, word.charAt(offset + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the characters accepted at the first or last position of the
+     * condition.
+     *
+     * @param last true to check the last position, false for the first one
+     * @return the accepted (or rejected, when {@link #isNegatedAt(boolean)}
+     *         returns true) characters, or null if any character is accepted
+     */
+    char[] getClassAt(boolean last) {
+        if (classes.length == 0) {
+            return null;
+        }
+        return classes[last ? classes.length - 1 : 0];
+    }
+
+    boolean isNegatedAt(boolean last) {
+        return classes.length != 0 && negated[last ? classes.length - 1 : 0];
     }
 
     public String getStripChars() {
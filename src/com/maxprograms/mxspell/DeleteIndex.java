@@ -0,0 +1,278 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Symmetric delete index for finding dictionary words within a small edit
+ * distance. Every word is stored under all the strings obtained by deleting up
+ * to maxDistance characters from it; a misspelled word is looked up under its
+ * own deletes, and the words found are verified with {@link EditDistance}.
+ * <p>
+ * Only the first {@link #PREFIX_LENGTH} characters of each word are indexed,
+ * which keeps the number of deletes per word small. Deletes are stored as
+ * hashes, collisions only add candidates that fail verification.
+ */
+final class DeleteIndex {
+
+    static final int PREFIX_LENGTH = 7;
+    // a prefix has at most 2^PREFIX_LENGTH subsequences
+    private static final int MAX_DELETES = 1 << PREFIX_LENGTH;
+    // ranges of hashes that are sorted separately while building
+    private static final int BUCKETS = 16;
+    // pairs that are always sorted at once, 8 MB
+    private static final int PARTITION_SIZE = 1 << 20;
+    private static final ThreadLocal<int[]> SCRATCH = ThreadLocal.withInitial(() -> new int[MAX_DELETES]);
+
+    private final String[] words;
+    // heap used by the words when they are not shared with the word store
+    private final long wordBytes;
+    private final int maxDistance;
+    // open addressing table of run numbers plus one, 0 marks an empty slot
+    private final int[] table;
+    private final int mask;
+    // each distinct delete hash owns the run of ids from runStarts[r] to runStarts[r + 1]
+    private final int[] runHashes;
+    private final int[] runStarts;
+    private final int[] ids;
+
+    private DeleteIndex(String[] words, long wordBytes, int maxDistance, int[] table, int[] runHashes,
+            int[] runStarts, int[] ids) {
+        this.words = words;
+        this.wordBytes = wordBytes;
+        this.maxDistance = maxDistance;
+        this.table = table;
+        this.mask = table.length - 1;
+        this.runHashes = runHashes;
+        this.runStarts = runStarts;
+        this.ids = ids;
+    }
+
+    /**
+     * Builds the index of a word store. Deletes are generated in parallel on
+     * the common fork-join pool and sorted one range of hashes at a time, so
+     * building needs little memory beyond the index itself.
+     *
+     * @param store       the words to index
+     * @param maxDistance largest edit distance that searches will use
+     * @return the index
+     */
+    static DeleteIndex build(WordStore store, int maxDistance) {
+        List<String> keys = new ArrayList<>(store.size());
+        store.forEach((key, entry) -> keys.add(key));
+        String[] words = keys.toArray(new String[keys.size()]);
+        // WordIndex hands out the Strings it stores, other stores create them
+        long wordBytes = 0;
+        if (!(store instanceof WordIndex)) {
+            for (String word : words) {
+                wordBytes += WordStore.stringSize(word);
+            }
+        }
+
+        // number of distinct delete hashes of each word in each range of hashes
+        byte[] counts = new byte[words.length * BUCKETS];
+        IntStream.range(0, words.length).parallel().forEach(i -> {
+            int[] hashes = SCRATCH.get();
+            int count = hashes(words[i], maxDistance, hashes);
+            for (int j = 0; j < count; j++) {
+                counts[i * BUCKETS + bucket(hashes[j])]++;
+            }
+        });
+        long[] bucketSizes = new long[BUCKETS];
+        for (int i = 0; i < counts.length; i++) {
+            bucketSizes[i % BUCKETS] += counts[i] & 0xFF;
+        }
+        long pairCount = 0;
+        for (long size : bucketSizes) {
+            pairCount += size;
+        }
+        int total = Math.toIntExact(pairCount);
+        long limit = Math.max(PARTITION_SIZE, total / 4);
+
+        int[] ids = new int[total];
+        int[] runHashes = new int[0];
+        int[] runStarts = new int[1];
+        int run = 0;
+        int position = 0;
+        int[] offsets = new int[words.length];
+        int first = 0;
+        while (first < BUCKETS) {
+            // group consecutive ranges while the pairs to sort stay within the limit
+            int last = first + 1;
+            long size = bucketSizes[first];
+            while (last < BUCKETS && size + bucketSizes[last] <= limit) {
+                size += bucketSizes[last++];
+            }
+            int from = first;
+            int to = last;
+            int offset = 0;
+            for (int i = 0; i < words.length; i++) {
+                offsets[i] = offset;
+                for (int b = from; b < to; b++) {
+                    offset += counts[i * BUCKETS + b] & 0xFF;
+                }
+            }
+            // (hash, id) pairs of these ranges; a word never repeats a hash
+            long[] pairs = new long[offset];
+            IntStream.range(0, words.length).parallel().forEach(i -> {
+                int[] hashes = SCRATCH.get();
+                int count = hashes(words[i], maxDistance, hashes);
+                int at = offsets[i];
+                for (int j = 0; j < count; j++) {
+                    int b = bucket(hashes[j]);
+                    if (b >= from && b < to) {
+                        pairs[at++] = (long) hashes[j] << 32 | i;
+                    }
+                }
+            });
+            Arrays.parallelSort(pairs);
+            int distinct = 0;
+            for (int i = 0; i < pairs.length; i++) {
+                if (i == 0 || pairs[i] >>> 32 != pairs[i - 1] >>> 32) {
+                    distinct++;
+                }
+            }
+            if (run + distinct > runHashes.length) {
+                // hashes are spread evenly, so the ranges seen predict the number of runs
+                long expected = (run + distinct) * (long) total / (position + pairs.length);
+                int length = (int) Math.max(run + distinct, expected + expected / 50);
+                runHashes = Arrays.copyOf(runHashes, length);
+                runStarts = Arrays.copyOf(runStarts, length + 1);
+            }
+            for (int i = 0; i < pairs.length; i++) {
+                int hash = (int) (pairs[i] >>> 32);
+                if (i == 0 || hash != (int) (pairs[i - 1] >>> 32)) {
+                    runHashes[run] = hash;
+                    runStarts[run++] = position;
+                }
+                ids[position++] = (int) pairs[i];
+            }
+            first = last;
+        }
+        runStarts[run] = total;
+
+        int capacity = 16;
+        while (capacity < run * 2L) {
+            capacity <<= 1;
+        }
+        int[] table = new int[capacity];
+        int tableMask = capacity - 1;
+        for (int r = 0; r < run; r++) {
+            int slot = runHashes[r] & tableMask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & tableMask;
+            }
+            table[slot] = r + 1;
+        }
+        return new DeleteIndex(words, wordBytes, maxDistance, table, runHashes, runStarts, ids);
+    }
+
+    private static int bucket(int hash) {
+        return hash >>> (32 - Integer.numberOfTrailingZeros(BUCKETS));
+    }
+
+    /**
+     * Computes the distinct hashes of the deletes of the indexed prefix of a
+     * word, in ascending order.
+     *
+     * @param word        the word
+     * @param maxDistance number of characters that can be deleted
+     * @param out         receives the hashes, at least {@link #MAX_DELETES} long
+     * @return the number of hashes
+     */
+    private static int hashes(CharSequence word, int maxDistance, int[] out) {
+        int length = Math.min(word.length(), PREFIX_LENGTH);
+        int count = 0;
+        // each bit set in a mask deletes the character at that position;
+        // the masks with k bits are visited in increasing order
+        for (int k = 0; k <= Math.min(maxDistance, length); k++) {
+            int mask = (1 << k) - 1;
+            while (mask < 1 << length) {
+                int h = 0;
+                for (int i = 0; i < length; i++) {
+                    if ((mask & 1 << i) == 0) {
+                        h = 31 * h + word.charAt(i);
+                    }
+                }
+                h *= 0x9E3779B9;
+                out[count++] = h ^ (h >>> 16);
+                if (mask == 0) {
+                    break;
+                }
+                int lowest = mask & -mask;
+                int next = mask + lowest;
+                mask = (((next ^ mask) >>> 2) / lowest) | next;
+            }
+        }
+        Arrays.sort(out, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || out[i] != out[unique - 1]) {
+                out[unique++] = out[i];
+            }
+        }
+        return unique;
+    }
+
+    int getMaxDistance() {
+        return maxDistance;
+    }
+
+    /**
+     * Finds the indexed words within a given distance of a word.
+     *
+     * @param word     normalized word
+     * @param distance largest distance, at most the one used to build the index
+     * @param consumer receives each word found and its distance
+     */
+    void search(CharSequence word, int distance, ObjIntConsumer<String> consumer) {
+        int max = Math.min(distance, maxDistance);
+        int[] hashes = new int[MAX_DELETES];
+        int count = hashes(word, max, hashes);
+        Set<Integer> seen = new HashSet<>();
+        for (int h = 0; h < count; h++) {
+            int hash = hashes[h];
+            int slot = hash & mask;
+            while (table[slot] != 0) {
+                int run = table[slot] - 1;
+                if (runHashes[run] == hash) {
+                    for (int i = runStarts[run]; i < runStarts[run + 1]; i++) {
+                        int id = ids[i];
+                        if (seen.add(id)) {
+                            int d = EditDistance.distance(word, words[id], max);
+                            if (d <= max) {
+                                consumer.accept(words[id], d);
+                            }
+                        }
+                    }
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+    }
+
+    /**
+     * Estimates the heap used by the index, including the words when they are
+     * copies made for the index and not the Strings of a {@link WordIndex}.
+     *
+     * @return approximate size in bytes
+     */
+    long memoryUsage() {
+        return (ids.length + table.length + runHashes.length + runStarts.length + words.length) * 4L + wordBytes;
+    }
+}
@@ -9,61 +9,130 @@
 *******************************************************************************/
 package com.maxprograms.mxspell;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
-import java.lang.System.Logger;
-import java.lang.System.Logger.Level;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.text.Collator;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.SortedMap;
 import java.util.TreeMap;
-import java.util.Vector;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 
+/**
+ * A Hunspell dictionary. Words and affix rules are read once and never change
+ * afterwards, so a single instance can be shared by any number of threads;
+ * lookups take no locks. Learned and ignored words are kept apart from the
+ * words of the dictionary, in concurrent sets that are updated without
+ * blocking readers and appended to their files in the background; a
+ * {@link SpellChecker} with its own data folder does not see the learned words
+ * of the dictionary.
+ */
 public class Dictionary {
 
-    private static final Logger logger = System.getLogger(Dictionary.class.getName());
+    /**
+     * Options for loading a dictionary.
+     *
+     * @param parallelLoading     true to parse large .dic files on the common
+     *                            fork-join pool; the contents are the same as
+     *                            with sequential parsing
+     * @param compactStorage      true to keep the words of .dic files in a
+     *                            minimal automaton, see {@link Dictionary#compact()}
+     * @param deleteIndexDistance maximum edit distance of the delete index built
+     *                            after loading, see
+     *                            {@link Dictionary#buildDeleteIndex(int)}, or 0
+     *                            for no index
+     */
+    public record Options(boolean parallelLoading, boolean compactStorage, int deleteIndexDistance) {
 
-    private Map<String, DictionaryEntry> wordsMap;
-    private AffixParser parser;
-    private File dataFolder;
-    private List<String> learnedWords;
-    private List<String> ignoredWords;
+        /**
+         * Parallel loading into a hash index, without delete index.
+         */
+        public static final Options DEFAULT = new Options(true, false, 0);
+    }
+
+    private final AffixParser parser;
+    private final KeyNormalizer normalizer;
+    private final WordTokenizer tokenizer;
+    private final Locale locale;
+    // replaced as a whole by compact(), readers see the old or the new store
+    private volatile WordStore wordsMap;
+    private volatile DeleteIndex deleteIndex;
+    // built on first use when the words are not in compact storage
+    private volatile WordAutomaton automaton;
+    // built on first use, by the first misspelling without other suggestions
+    private volatile NgramIndex ngramIndex;
+    private volatile SortedMap<String, DictionaryEntry> sortedWords;
+    private volatile File dataFolder;
+    private volatile UserWords userWords;
 
     public Dictionary(String language, String wordsFile, String affixFile) throws IOException {
+        this(language, wordsFile, affixFile, Options.DEFAULT);
+    }
+
+    /**
+     * Loads a dictionary from its .dic and .aff files.
+     * 
+     * @param language  language of the dictionary
+     * @param wordsFile the .dic file
+     * @param affixFile the .aff file
+     * @param options   how to load and store the words
+     * @throws IOException if the dictionary cannot be read
+     */
+    public Dictionary(String language, String wordsFile, String affixFile, Options options) throws IOException {
         File affixes = new File(affixFile);
         if (!affixes.exists()) {
             MessageFormat mf = new MessageFormat(Messages.getString("Dictionary.0"));
             Object[] args = { affixFile };
             throw new IOException(mf.format(args));
         }
-        Charset encoding = EncodingResolver.getEncoding(affixes);
-        parser = new AffixParser(affixes, encoding);
-        Locale locale = new Locale(language);
-        wordsMap = new TreeMap<>(Collator.getInstance(locale));
+        parser = new AffixParser(affixes.getName(), Files.readAllBytes(affixes.toPath()));
+        locale = new Locale(language);
+        normalizer = new KeyNormalizer(locale);
+        tokenizer = new WordTokenizer(parser.getWordCharacters());
         File words = new File(wordsFile);
         if (!words.exists()) {
             MessageFormat mf = new MessageFormat(Messages.getString("Dictionary.1"));
             Object[] args = { wordsFile };
             throw new IOException(mf.format(args));
         }
-        loadWords(words, encoding);
+        loadWords(Files.readAllBytes(words.toPath()), words.getAbsolutePath(), options);
         dataFolder = words.getParentFile();
         loadExceptions();
     }
 
+    /**
+     * Loads a dictionary packed in a zip file. The .dic and .aff entries are read
+     * directly from the archive; learned and ignored words are stored in a folder
+     * named after the zip file unless {@link #setDataFolder(File)} selects a
+     * different location.
+     * 
+     * @param language language of the dictionary
+     * @param zipFile  zip file that contains the .dic and .aff files
+     * @throws IOException if the dictionary cannot be read
+     */
     public Dictionary(String language, String zipFile) throws IOException {
+        this(language, zipFile, Options.DEFAULT);
+    }
+
+    /**
+     * Loads a dictionary packed in a zip file, see
+     * {@link #Dictionary(String, String)}.
+     * 
+     * @param language language of the dictionary
+     * @param zipFile  zip file that contains the .dic and .aff files
+     * @param options  how to load and store the words
+     * @throws IOException if the dictionary cannot be read
+     */
+    public Dictionary(String language, String zipFile, Options options) throws IOException {
         File zip = new File(zipFile);
         if (!zip.exists()) {
             MessageFormat mf = new MessageFormat(Messages.getString("Dictionary.2"));
@@ -75,182 +144,380 @@ public class Dictionary {
             zipNname = zipNname.substring(0, zipNname.lastIndexOf('.'));
         }
         dataFolder = new File(zip.getParentFile(), zipNname.replace('_', '-'));
-        if (!dataFolder.exists()) {
-            Files.createDirectories(dataFolder.toPath());
-        }
-        String wordsFile = "";
-        String affixFile = "";
-        try (ZipInputStream input = new ZipInputStream(new FileInputStream(zip))) {
-            ZipEntry entry = null;
-            while ((entry = input.getNextEntry()) != null) {
+        try (ZipFile archive = new ZipFile(zip)) {
+            ZipEntry wordsEntry = null;
+            ZipEntry affixEntry = null;
+            Enumeration<? extends ZipEntry> entries = archive.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
                 String name = entry.getName();
-                if (name.endsWith(".dic") || name.endsWith(".aff")) {
-                    File tmp = new File(dataFolder, name);
-                    if (tmp.exists()) {
-                        // remove previous version
-                        Files.delete(tmp.toPath());
-                    }
-                    try (FileOutputStream output = new FileOutputStream(tmp.getAbsolutePath())) {
-                        byte[] buf = new byte[2048];
-                        int len;
-                        while ((len = input.read(buf)) > 0) {
-                            output.write(buf, 0, len);
-                        }
-                    }
-                    if (name.endsWith(".dic")) {
-                        wordsFile = tmp.getAbsolutePath();
-                    }
-                    if (name.endsWith(".aff")) {
-                        affixFile = tmp.getAbsolutePath();
-                    }
+                if (name.endsWith(".dic")) {
+                    wordsEntry = entry;
+                }
+                if (name.endsWith(".aff")) {
+                    affixEntry = entry;
                 }
             }
+            if (wordsEntry == null) {
+                MessageFormat mf = new MessageFormat(Messages.getString("Dictionary.3"));
+                Object[] args = { zipFile };
+                throw new IOException(mf.format(args));
+            }
+            if (affixEntry == null) {
+                MessageFormat mf = new MessageFormat(Messages.getString("Dictionary.4"));
+                Object[] args = { zipFile };
+                throw new IOException(mf.format(args));
+            }
+            try (InputStream affixStream = archive.getInputStream(affixEntry)) {
+                parser = new AffixParser(affixEntry.getName(), affixStream.readAllBytes());
+            }
+            locale = new Locale(language);
+            normalizer = new KeyNormalizer(locale);
+            tokenizer = new WordTokenizer(parser.getWordCharacters());
+            try (InputStream wordsStream = archive.getInputStream(wordsEntry)) {
+                loadWords(wordsStream.readAllBytes(), wordsEntry.getName(), options);
+            }
         }
-        if (wordsFile.isEmpty()) {
-            MessageFormat mf = new MessageFormat(Messages.getString("Dictionary.3"));
-            Object[] args = { zipFile };
-            throw new IOException(mf.format(args));
-        }
-        if (affixFile.isEmpty()) {
-            MessageFormat mf = new MessageFormat(Messages.getString("Dictionary.4"));
-            Object[] args = { zipFile };
-            throw new IOException(mf.format(args));
+        loadExceptions();
+    }
+
+    /**
+     * Opens a dictionary compiled with {@link DictionaryCompiler}. The word index
+     * is memory mapped and read in place, so opening is almost free and
+     * processes that use the same file share the operating system page cache.
+     * 
+     * @param language     language of the dictionary
+     * @param compiledFile the compiled dictionary
+     * @throws IOException if the file cannot be read or has an unsupported format
+     */
+    public Dictionary(String language, File compiledFile) throws IOException {
+        this(language, compiledFile, Options.DEFAULT);
+    }
+
+    /**
+     * Opens a dictionary compiled with {@link DictionaryCompiler}, see
+     * {@link #Dictionary(String, File)}. Compiled words are always read in
+     * place, so only the delete index option applies.
+     * 
+     * @param language     language of the dictionary
+     * @param compiledFile the compiled dictionary
+     * @param options      how to index the words
+     * @throws IOException if the file cannot be read or has an unsupported format
+     */
+    public Dictionary(String language, File compiledFile, Options options) throws IOException {
+        DictionaryCompiler.Contents contents = DictionaryCompiler.open(compiledFile);
+        parser = contents.parser();
+        wordsMap = contents.words();
+        locale = new Locale(language);
+        normalizer = new KeyNormalizer(locale);
+        tokenizer = new WordTokenizer(parser.getWordCharacters());
+        if (options.deleteIndexDistance() > 0) {
+            buildDeleteIndex(options.deleteIndexDistance());
         }
-        File affixes = new File(affixFile);
-        Charset encoding = EncodingResolver.getEncoding(affixes);
-        parser = new AffixParser(affixes, encoding);
-        Locale locale = new Locale(language);
-        wordsMap = new TreeMap<>(Collator.getInstance(locale));
-        loadWords(new File(wordsFile), encoding);
+        dataFolder = compiledFile.getAbsoluteFile().getParentFile();
         loadExceptions();
     }
 
     private void loadExceptions() {
-        learnedWords = new Vector<>();
-        File learnedWordsFile = new File(dataFolder, "learned.txt");
-        if (learnedWordsFile.exists()) {
-            try (FileReader reader = new FileReader(learnedWordsFile, StandardCharsets.UTF_8)) {
-                try (BufferedReader buffered = new BufferedReader(reader)) {
-                    String line = "";
-                    while ((line = buffered.readLine()) != null) {
-                        learnedWords.add(line);
-                    }
-                }
-            } catch (IOException e) {
-                logger.log(Level.WARNING, e.getMessage());
-            }
+        userWords = new UserWords(dataFolder);
+    }
+
+    /**
+     * Selects the folder where learned and ignored words are stored. The folder
+     * is created when the first word is saved, so dictionaries can be loaded from
+     * read-only locations.
+     * 
+     * @param folder folder for learned.txt and ignored.txt
+     */
+    public synchronized void setDataFolder(File folder) {
+        flush();
+        dataFolder = folder;
+        loadExceptions();
+    }
+
+    public File getDataFolder() {
+        return dataFolder;
+    }
+
+    public void learn(String word) {
+        userWords.learn(word);
+    }
+
+    /**
+     * Adds a group of words to the learned words, for example the terms of a
+     * glossary. The words are saved with a single write.
+     * 
+     * @param words the words to learn
+     */
+    public void learnAll(Collection<String> words) {
+        userWords.learnAll(words);
+    }
+
+    public void ignore(String word) {
+        userWords.ignore(word);
+    }
+
+    UserWords getUserWords() {
+        return userWords;
+    }
+
+    /**
+     * Saves learned and ignored words immediately. Words are otherwise written in
+     * the background shortly after they are added, and when the JVM exits.
+     */
+    public void flush() {
+        userWords.flush();
+    }
+
+    /**
+     * Converts the words of this dictionary to compact storage. Compact
+     * dictionaries keep their words in a minimal automaton that needs a fraction
+     * of the memory of the hash index, at the price of slightly slower lookups
+     * and a longer load time.
+     * 
+     * @see Options#compactStorage()
+     */
+    public synchronized void compact() {
+        if (!(wordsMap instanceof WordAutomaton)) {
+            WordAutomaton current = automaton;
+            wordsMap = current != null ? current : WordAutomaton.build(wordsMap);
+            automaton = null;
         }
-        ignoredWords = new Vector<>();
-        File ignoredWordsFile = new File(dataFolder, "ignored.txt");
-        if (ignoredWordsFile.exists()) {
-            try (FileReader reader = new FileReader(ignoredWordsFile, StandardCharsets.UTF_8)) {
-                try (BufferedReader buffered = new BufferedReader(reader)) {
-                    String line = "";
-                    while ((line = buffered.readLine()) != null) {
-                        ignoredWords.add(line);
-                    }
-                }
-            } catch (IOException e) {
-                logger.log(Level.WARNING, e.getMessage());
-            }
+    }
+
+    /**
+     * Builds an index of the words that can be obtained by deleting up to
+     * {@code maxDistance} characters from each dictionary word. With the index,
+     * suggestions include words up to that distance from a misspelling, found
+     * with a few hash probes instead of by generating candidates. The index is
+     * built in parallel and its size is included in {@link #getMemoryUsage()}.
+     * 
+     * @param maxDistance maximum edit distance, usually 1 or 2
+     */
+    public synchronized void buildDeleteIndex(int maxDistance) {
+        DeleteIndex current = deleteIndex;
+        if (current == null || current.getMaxDistance() != maxDistance) {
+            deleteIndex = DeleteIndex.build(wordsMap, maxDistance);
         }
     }
 
-    public void learn(String word) {
-        if (!learnedWords.contains(word)) {
-            learnedWords.add(word);
+    /**
+     * Returns the estimated heap used by the delete index.
+     * 
+     * @return approximate size in bytes, 0 if there is no index
+     */
+    public long getDeleteIndexMemoryUsage() {
+        DeleteIndex current = deleteIndex;
+        return current != null ? current.memoryUsage() : 0;
+    }
+
+    /**
+     * Finds the words within the distance of the delete index, closest first.
+     * 
+     * @param word the misspelled word
+     * @return the words found, empty if there is no delete index
+     */
+    List<String> getNearWords(String word) {
+        DeleteIndex index = deleteIndex;
+        if (index == null) {
+            return List.of();
         }
-        File learnedWordsFile = new File(dataFolder, "learned.txt");
-        try (FileOutputStream output = new FileOutputStream(learnedWordsFile.getAbsolutePath())) {
-            for (String w : learnedWords) {
-                output.write(w.getBytes(StandardCharsets.UTF_8));
-                output.write('\n');
+        List<List<String>> byDistance = new ArrayList<>();
+        for (int i = 0; i <= index.getMaxDistance(); i++) {
+            byDistance.add(new ArrayList<>());
+        }
+        index.search(normalizer.normalize(word), index.getMaxDistance(), (key, distance) -> {
+            if (distance > 0) {
+                byDistance.get(distance).add(key);
             }
-        } catch (IOException e) {
-            logger.log(Level.WARNING, e.getMessage());
+        });
+        // hits come in hash order
+        for (List<String> keys : byDistance) {
+            Collections.sort(keys);
         }
+        return toWords(byDistance);
     }
 
-    public void ignore(String word) {
-        if (!ignoredWords.contains(word)) {
-            ignoredWords.add(word);
+    /**
+     * Finds the words within a given edit distance, closest first, walking an
+     * automaton of the dictionary words. Dictionaries that do not use compact
+     * storage build the automaton the first time it is needed.
+     * 
+     * @param word        the misspelled word
+     * @param maxDistance largest edit distance, counting swapped characters as
+     *                    one edit
+     * @return the words found
+     */
+    List<String> getWordsWithin(String word, int maxDistance) {
+        List<List<String>> byDistance = new ArrayList<>();
+        for (int i = 0; i <= maxDistance; i++) {
+            byDistance.add(new ArrayList<>());
         }
-        File ignoredWordsFile = new File(dataFolder, "ignored.txt");
-        try (FileOutputStream output = new FileOutputStream(ignoredWordsFile.getAbsolutePath())) {
-            for (String w : ignoredWords) {
-                output.write(w.getBytes(StandardCharsets.UTF_8));
-                output.write('\n');
+        getAutomaton().search(normalizer.normalize(word), maxDistance, (key, distance) -> {
+            if (distance > 0) {
+                byDistance.get(distance).add(key);
             }
-        } catch (IOException e) {
-            logger.log(Level.WARNING, e.getMessage());
-        }
+        });
+        return toWords(byDistance);
     }
 
-    private void loadWords(File words, Charset encoding) throws IOException {
-        try (FileReader reader = new FileReader(words, encoding)) {
-            try (BufferedReader buffered = new BufferedReader(reader)) {
-                int entries = 0;
-                String line = buffered.readLine();
-                try {
-                    // Danish dictionary has comment after word count, remove it
-                    String[] result = line.split("\\s#");
-                    entries = Integer.parseInt(result[0]);
-                } catch (NumberFormatException nfe) {
-                    MessageFormat mf = new MessageFormat(Messages.getString("Dictionary.5"));
-                    Object[] args = { words.getAbsoluteFile() };
-                    logger.log(Level.WARNING, mf.format(args));
-                    processWordsLine(line);
+    private WordAutomaton getAutomaton() {
+        if (wordsMap instanceof WordAutomaton compacted) {
+            return compacted;
+        }
+        WordAutomaton current = automaton;
+        if (current == null) {
+            synchronized (this) {
+                if (wordsMap instanceof WordAutomaton compacted) {
+                    return compacted;
                 }
-                while ((line = buffered.readLine()) != null) {
-                    processWordsLine(line);
+                current = automaton;
+                if (current == null) {
+                    current = WordAutomaton.build(wordsMap);
+                    automaton = current;
                 }
-                if (entries != 0 && entries != wordsMap.size()) {
-                    MessageFormat mf = new MessageFormat(Messages.getString("Dictionary.6"));
-                    Object[] args = { words.getName(), "" + entries, "" + wordsMap.size() };
-                    logger.log(Level.WARNING, mf.format(args));
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Finds the words that share most character bigrams with a misspelled word,
+     * honoring the MAXNGRAMSUGS, MAXDIFF and ONLYMAXDIFF options of the affix
+     * file. The bigram index is built the first time it is needed.
+     * 
+     * @param word the misspelled word
+     * @return the words found, most similar first
+     */
+    List<String> getNgramWords(String word) {
+        int max = parser.getMaxNgramSuggestions();
+        if (max == 0) {
+            return List.of();
+        }
+        NgramIndex index = ngramIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = ngramIndex;
+                if (index == null) {
+                    index = NgramIndex.build(wordsMap, locale);
+                    ngramIndex = index;
                 }
             }
         }
+        List<String> keys = index.search(normalizer.normalize(word),
+                max < 0 ? NgramIndex.DEFAULT_SUGGESTIONS : max, parser.getMaxDiff(), parser.isOnlyMaxDiff());
+        return toWords(List.of(keys));
     }
 
-    private void processWordsLine(String line) throws IOException {
-        String[] parts = line.trim().split("\\/");
-        if (parts.length > 1) {
-            String word = parts[0];
-            String affix = parts[1];
-            String[] affixParts = affix.split("\\s+");
-            if (affixParts.length == 1) {
-                // just flags
-                wordsMap.put(word, new DictionaryEntry(word, parser.getFlags(affixParts[0]), null));
-            } else {
-                // contains flags & more
-                StringBuffer builder = new StringBuffer();
-                for (int i = 1; i < affixParts.length; i++) {
-                    builder.append(' ');
-                    builder.append(affixParts[1]);
+    // original spelling of the keys in each group, in order
+    private List<String> toWords(List<List<String>> groups) {
+        List<String> result = new ArrayList<>();
+        for (List<String> keys : groups) {
+            for (String key : keys) {
+                DictionaryEntry entry = wordsMap.get(key);
+                if (entry != null) {
+                    result.add(entry.getWord());
                 }
-                wordsMap.put(word,
-                        new DictionaryEntry(word, parser.getFlags(affixParts[0]), builder.toString().strip()));
             }
-        } else {
-            // it's just a word
-            wordsMap.put(line, new DictionaryEntry(line, null, null));
         }
+        return result;
     }
 
-    public DictionaryEntry lookup(String word) {
-        if (wordsMap.containsKey(word)) {
-            return wordsMap.get(word);
+    private void loadWords(byte[] data, String name, Options options) {
+        WordsReader reader = new WordsReader(parser, normalizer);
+        wordsMap = reader.read(data, parser.getEncoding(), name, options.parallelLoading());
+        if (options.compactStorage()) {
+            compact();
         }
-        if (learnedWords.contains(word)) {
-            return new DictionaryEntry(word, null, null);
+        if (options.deleteIndexDistance() > 0) {
+            buildDeleteIndex(options.deleteIndexDistance());
+        }
+    }
+
+    public DictionaryEntry lookup(String word) {
+        DictionaryEntry entry = wordsMap.get(normalizer.normalize(word));
+        if (entry != null) {
+            return entry;
         }
-        if (ignoredWords.contains(word)) {
+        if (userWords.contains(word)) {
             return new DictionaryEntry(word, null, null);
         }
         return null;
     }
 
+    /**
+     * Checks if a sequence of characters is a word of the dictionary files.
+     * Learned and ignored words are not included; callers check them in the
+     * {@link UserWords} they use. Unlike {@link #lookup(String)}, no String is
+     * created for words that are already normalized, so candidates can be
+     * checked straight from a buffer.
+     * 
+     * @param word the characters to check
+     * @return true if the word is in the dictionary
+     */
+    boolean isWord(CharSequence word) {
+        WordStore store = wordsMap;
+        DictionaryEntry entry = normalizer.isNormalized(word) ? store.get(word)
+                : store.get(normalizer.normalize(word));
+        return entry != null;
+    }
+
+    /**
+     * Finds the root of a word built by adding prefixes and/or suffixes to a
+     * dictionary entry.
+     * 
+     * @param word the word to check
+     * @return the entry of the root or null if the word is not an inflected form
+     */
+    public DictionaryEntry findRoot(String word) {
+        return parser.findRoot(word, stem -> wordsMap.get(normalizer.normalize(stem)));
+    }
+
+    /**
+     * Returns the dictionary entries sorted with the Collator of the dictionary
+     * language. The sorted view is built on first use; lookups never need it.
+     * 
+     * @return an unmodifiable map of words to entries in collation order
+     */
+    public SortedMap<String, DictionaryEntry> getSortedEntries() {
+        SortedMap<String, DictionaryEntry> sorted = sortedWords;
+        if (sorted == null) {
+            // concurrent callers may build it twice, the result is the same
+            SortedMap<String, DictionaryEntry> map = new TreeMap<>(Collator.getInstance(locale));
+            wordsMap.forEach((key, entry) -> map.put(entry.getWord(), entry));
+            sorted = Collections.unmodifiableSortedMap(map);
+            sortedWords = sorted;
+        }
+        return sorted;
+    }
+
+    AffixParser getParser() {
+        return parser;
+    }
+
+    WordStore getWordStore() {
+        return wordsMap;
+    }
+
+    /**
+     * Estimates the heap used by the words of this dictionary and the indexes
+     * built for suggestions. Dictionaries opened from compiled files keep their
+     * words in the mapped file and use very little heap.
+     *
+     * @return approximate size in bytes
+     */
+    public long getMemoryUsage() {
+        WordAutomaton current = automaton;
+        long automatonUsage = current != null ? current.memoryUsage() : 0;
+        NgramIndex ngrams = ngramIndex;
+        long ngramUsage = ngrams != null ? ngrams.memoryUsage() : 0;
+        return wordsMap.memoryUsage() + getDeleteIndexMemoryUsage() + automatonUsage + ngramUsage;
+    }
+
+    WordTokenizer getTokenizer() {
+        return tokenizer;
+    }
+
     public Map<String, String> getReplacementMap() {
         return parser.getReplacementMap();
     }
@@ -264,6 +531,7 @@ public class Dictionary {
         if (flags == null) {
             return new ArrayList<>();
         }
+        // entries created by callers only guess the FLAG type, encode names again
         return parser.getWords(entry.getWord(), flags);
     }
 }
@@ -0,0 +1,251 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Writes parsed dictionaries to a binary file that can be memory mapped.
+ *
+ * <pre>
+ * int     magic ("MXSD")
+ * int     format version
+ * long    checksum of the .aff and .dic files
+ * int     length of the tables block
+ * byte[]  tables block: affix tables and flag sets (flag codes, see {@link FlagSet})
+ * padding to a multiple of 4
+ * byte[]  word index, see {@link MappedWordIndex}
+ * </pre>
+ */
+public class DictionaryCompiler {
+
+    private static final Logger logger = System.getLogger(DictionaryCompiler.class.getName());
+
+    public static final String EXTENSION = ".mxd";
+
+    static final int MAGIC = 0x4D585344;
+    static final int VERSION = 1;
+    private static final int HEADER = 20;
+
+    record Contents(long checksum, AffixParser parser, WordStore words) {
+    }
+
+    private DictionaryCompiler() {
+        // use compile() or load()
+    }
+
+    /**
+     * Parses a Hunspell dictionary and stores it in compiled form.
+     *
+     * @param language   language of the dictionary
+     * @param wordsFile  the .dic file
+     * @param affixFile  the .aff file
+     * @param output     the compiled file to write
+     * @throws IOException if the dictionary cannot be parsed or written
+     */
+    public static void compile(String language, String wordsFile, String affixFile, File output)
+            throws IOException {
+        Dictionary dictionary = new Dictionary(language, wordsFile, affixFile);
+        long checksum = checksum(new File(affixFile), new File(wordsFile));
+        write(dictionary.getParser(), dictionary.getWordStore(), checksum, output);
+    }
+
+    /**
+     * Opens a compiled dictionary, compiling it first when it does not exist or
+     * when it was built from different .dic and .aff files. If the compiled file
+     * cannot be written the dictionary is loaded from the text files.
+     *
+     * @param language  language of the dictionary
+     * @param wordsFile the .dic file
+     * @param affixFile the .aff file
+     * @param compiled  the compiled file
+     * @return the loaded dictionary
+     * @throws IOException if the dictionary cannot be loaded
+     */
+    public static Dictionary load(String language, String wordsFile, String affixFile, File compiled)
+            throws IOException {
+        return load(language, wordsFile, affixFile, compiled, Dictionary.Options.DEFAULT);
+    }
+
+    /**
+     * Opens a compiled dictionary with the given options, see
+     * {@link #load(String, String, String, File)}.
+     *
+     * @param language  language of the dictionary
+     * @param wordsFile the .dic file
+     * @param affixFile the .aff file
+     * @param compiled  the compiled file
+     * @param options   how to load the dictionary
+     * @return the loaded dictionary
+     * @throws IOException if the dictionary cannot be loaded
+     */
+    public static Dictionary load(String language, String wordsFile, String affixFile, File compiled,
+            Dictionary.Options options) throws IOException {
+        if (!isCurrent(compiled, wordsFile, affixFile)) {
+            try {
+                compile(language, wordsFile, affixFile, compiled);
+            } catch (IOException e) {
+                MessageFormat mf = new MessageFormat(Messages.getString("DictionaryCompiler.2"));
+                Object[] args = { compiled.getAbsolutePath(), e.getMessage() };
+                logger.log(Level.WARNING, mf.format(args));
+                return new Dictionary(language, wordsFile, affixFile, options);
+            }
+        }
+        return new Dictionary(language, compiled, options);
+    }
+
+    /**
+     * Checks if a compiled dictionary exists, uses the current format version and
+     * was built from the given .dic and .aff files.
+     *
+     * @param compiled  the compiled file
+     * @param wordsFile the .dic file
+     * @param affixFile the .aff file
+     * @return true if the compiled file can be used
+     * @throws IOException if the source files cannot be read
+     */
+    public static boolean isCurrent(File compiled, String wordsFile, String affixFile) throws IOException {
+        if (!compiled.isFile() || compiled.length() < HEADER) {
+            return false;
+        }
+        try (DataInputStream input = new DataInputStream(new FileInputStream(compiled))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                return false;
+            }
+            return input.readLong() == checksum(new File(affixFile), new File(wordsFile));
+        }
+    }
+
+    static long checksum(File... files) throws IOException {
+        CRC32C crc = new CRC32C();
+        byte[] buffer = new byte[65536];
+        for (File file : files) {
+            try (InputStream input = new FileInputStream(file)) {
+                int read;
+                while ((read = input.read(buffer)) != -1) {
+                    crc.update(buffer, 0, read);
+                }
+            }
+        }
+        return crc.getValue();
+    }
+
+    static void write(AffixParser parser, WordStore words, long checksum, File output) throws IOException {
+        List<FlagSet> flagSets = new ArrayList<>();
+        Map<FlagSet, Integer> flagSetIds = new HashMap<>();
+        byte[] index = MappedWordIndex.build(words, flags -> flagSetIds.computeIfAbsent(flags, k -> {
+            flagSets.add(flags);
+            return flagSets.size() - 1;
+        }));
+        ByteArrayOutputStream tables = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(tables)) {
+            parser.write(out);
+            out.writeInt(flagSets.size());
+            for (FlagSet flags : flagSets) {
+                out.writeInt(flags.size());
+                for (int i = 0; i < flags.size(); i++) {
+                    out.writeChar(flags.codeAt(i));
+                }
+            }
+        }
+        // write a temporary file and move it, processes that mapped the old file keep their copy
+        File folder = output.getAbsoluteFile().getParentFile();
+        File tmp = File.createTempFile(output.getName(), ".tmp", folder);
+        try {
+            try (DataOutputStream out = new DataOutputStream(new FileOutputStream(tmp))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(checksum);
+                out.writeInt(tables.size());
+                tables.writeTo(out);
+                int padding = (4 - (HEADER + tables.size()) % 4) % 4;
+                out.write(new byte[padding]);
+                out.write(index);
+            }
+            Files.move(tmp.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    static Contents open(File compiled) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(compiled.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.limit() < HEADER || buffer.getInt(0) != MAGIC) {
+            MessageFormat mf = new MessageFormat(Messages.getString("DictionaryCompiler.0"));
+            Object[] args = { compiled.getAbsolutePath() };
+            throw new IOException(mf.format(args));
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            MessageFormat mf = new MessageFormat(Messages.getString("DictionaryCompiler.1"));
+            Object[] args = { compiled.getAbsolutePath(), "" + version };
+            throw new IOException(mf.format(args));
+        }
+        long checksum = buffer.getLong(8);
+        int tablesLength = buffer.getInt(16);
+        byte[] tables = new byte[tablesLength];
+        buffer.get(HEADER, tables);
+        AffixParser parser;
+        FlagSet[] flagSets;
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(tables))) {
+            parser = new AffixParser(compiled.getName(), input);
+            flagSets = new FlagSet[input.readInt()];
+            for (int i = 0; i < flagSets.length; i++) {
+                char[] codes = new char[input.readInt()];
+                for (int j = 0; j < codes.length; j++) {
+                    codes[j] = input.readChar();
+                }
+                flagSets[i] = parser.getFlagSet(codes);
+            }
+        }
+        int start = HEADER + tablesLength;
+        start += (4 - start % 4) % 4;
+        ByteBuffer words = buffer.slice(start, buffer.limit() - start);
+        return new Contents(checksum, parser, new MappedWordIndex(words, flagSets));
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 4) {
+            logger.log(Level.ERROR, Messages.getString("DictionaryCompiler.3"));
+            return;
+        }
+        try {
+            compile(args[0], args[1], args[2], new File(args[3]));
+        } catch (IOException e) {
+            logger.log(Level.ERROR, e.getMessage());
+        }
+    }
+}
@@ -14,17 +14,33 @@ import java.util.Arrays;
 public class DictionaryEntry implements Comparable<DictionaryEntry> {
 
     private String word;
-    private String[] flags;
+    private FlagSet flags;
 
     public DictionaryEntry(String word, String[] flags, String other) {
+        this(word, flags != null ? FlagSet.of(flags, FlagSet.guessType(flags)) : null);
+    }
+
+    DictionaryEntry(String word, FlagSet flags) {
         this.word = word;
         this.flags = flags;
     }
 
     public String[] getFlags() {
+        return flags != null ? flags.getNames() : null;
+    }
+
+    FlagSet getFlagSet() {
         return flags;
     }
 
+    public boolean hasFlag(String flag) {
+        return flags != null && flags.contains(flag);
+    }
+
+    boolean hasFlag(char flag) {
+        return flags != null && flags.contains(flag);
+    }
+
     public String getWord() {
         return word;
     }
@@ -32,14 +48,14 @@ public class DictionaryEntry implements Comparable<DictionaryEntry> {
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof DictionaryEntry entry) {
-            return word.equals(entry.word) && Arrays.equals(flags, entry.flags);
+            return word.equals(entry.word) && Arrays.equals(getFlags(), entry.getFlags());
         }
         return false;
     }
 
     @Override
     public int hashCode() {
-        return flags != null ? (word + Arrays.toString(flags)).hashCode() : word.hashCode();
+        return flags != null ? (word + Arrays.toString(getFlags())).hashCode() : word.hashCode();
     }
 
     @Override
@@ -49,7 +65,7 @@ public class DictionaryEntry implements Comparable<DictionaryEntry> {
             if (i != 0) {
                 return i;
             }
-            return Arrays.compare(flags, o.flags);
+            return Arrays.compare(getFlags(), o.getFlags());
         }
         return 0;
     }
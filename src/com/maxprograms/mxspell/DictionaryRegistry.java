@@ -0,0 +1,273 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shares loaded dictionaries between spell checkers. A dictionary is loaded the
+ * first time a language is requested; threads that ask for it while it is
+ * loading wait for the same load instead of starting their own.
+ * <p>
+ * Dictionaries that were not used recently are released when the estimated
+ * size of all loaded dictionaries exceeds the memory budget. Alternatively,
+ * the registry can hold dictionaries through soft references and let the
+ * garbage collector release them when memory is low. Released dictionaries
+ * stay valid for the checkers that already use them and are loaded again on
+ * the next request.
+ */
+public final class DictionaryRegistry {
+
+    private static volatile DictionaryRegistry defaultRegistry = new DictionaryRegistry(0, true);
+
+    private final long memoryBudget;
+    private final boolean softReferences;
+    private final Dictionary.Options options;
+    private final Map<Key, Slot> slots = new ConcurrentHashMap<>();
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Usage counts of a language.
+     *
+     * @param loads     number of times the dictionary was loaded
+     * @param hits      number of requests served by a loaded dictionary
+     * @param evictions number of times the dictionary was released
+     * @param memory    estimated heap used by the loaded dictionaries, in bytes
+     */
+    public record Statistics(long loads, long hits, long evictions, long memory) {
+    }
+
+    private record Key(String language, String folder) {
+    }
+
+    private static final class Counters {
+        final LongAdder loads = new LongAdder();
+        final LongAdder hits = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+    }
+
+    private static final class Slot {
+        final CompletableFuture<Void> ready = new CompletableFuture<>();
+        volatile Dictionary dictionary;
+        volatile SoftReference<Dictionary> reference;
+        volatile long lastUse;
+        volatile long memory;
+
+        Dictionary get() {
+            Dictionary result = dictionary;
+            if (result == null && reference != null) {
+                result = reference.get();
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Creates a registry.
+     *
+     * @param memoryBudget   maximum estimated size in bytes of the loaded
+     *                       dictionaries, 0 for no limit
+     * @param softReferences true to let the garbage collector release
+     *                       dictionaries that are not in use
+     */
+    public DictionaryRegistry(long memoryBudget, boolean softReferences) {
+        this(memoryBudget, softReferences, Dictionary.Options.DEFAULT);
+    }
+
+    /**
+     * Creates a registry that loads its dictionaries with the given options.
+     * Registries with different options can be used side by side, for example
+     * a compact one for rarely used languages.
+     *
+     * @param memoryBudget   maximum estimated size in bytes of the loaded
+     *                       dictionaries, 0 for no limit
+     * @param softReferences true to let the garbage collector release
+     *                       dictionaries that are not in use
+     * @param options        how to load the dictionaries
+     */
+    public DictionaryRegistry(long memoryBudget, boolean softReferences, Dictionary.Options options) {
+        this.memoryBudget = memoryBudget;
+        this.softReferences = softReferences;
+        this.options = options;
+    }
+
+    /**
+     * Returns the registry used by {@link SpellChecker}. The default registry
+     * has no memory budget and holds its dictionaries through soft references,
+     * so dictionaries that no checker uses are released when memory is low.
+     *
+     * @return the process wide registry
+     */
+    public static DictionaryRegistry getDefault() {
+        return defaultRegistry;
+    }
+
+    /**
+     * Replaces the registry used by {@link SpellChecker}. Dictionaries already
+     * loaded by the previous registry are not transferred.
+     *
+     * @param registry the new default registry
+     */
+    public static void setDefault(DictionaryRegistry registry) {
+        defaultRegistry = registry;
+    }
+
+    /**
+     * Returns the dictionary for a language, loading it if needed. One
+     * dictionary is shared by all the checkers of a language and dictionary
+     * folder; their learned and ignored words are kept apart, see
+     * {@link SpellChecker#SpellChecker(String, String, File)}.
+     *
+     * @param language         a valid BCP47 language code
+     * @param dictionaryFolder folder that contains the dictionaries
+     * @return the shared dictionary
+     * @throws IOException if the dictionary cannot be loaded
+     */
+    public Dictionary get(String language, String dictionaryFolder) throws IOException {
+        Key key = new Key(language, new File(dictionaryFolder).getAbsolutePath());
+        Counters count = counters.computeIfAbsent(language, k -> new Counters());
+        while (true) {
+            Slot slot = slots.get(key);
+            if (slot == null) {
+                Slot created = new Slot();
+                slot = slots.putIfAbsent(key, created);
+                if (slot == null) {
+                    return load(key, created, count);
+                }
+            }
+            await(slot);
+            Dictionary dictionary = slot.get();
+            if (dictionary != null) {
+                slot.lastUse = System.nanoTime();
+                count.hits.increment();
+                return dictionary;
+            }
+            // released by the garbage collector
+            if (slots.remove(key, slot)) {
+                count.evictions.increment();
+            }
+        }
+    }
+
+    private Dictionary load(Key key, Slot slot, Counters count) throws IOException {
+        Dictionary dictionary;
+        try {
+            dictionary = SpellChecker.loadDictionary(key.language(), key.folder(), options);
+        } catch (IOException | RuntimeException e) {
+            // let the next request try again
+            slots.remove(key, slot);
+            slot.ready.completeExceptionally(e);
+            throw e;
+        }
+        slot.memory = dictionary.getMemoryUsage();
+        slot.lastUse = System.nanoTime();
+        if (softReferences) {
+            slot.reference = new SoftReference<>(dictionary);
+        } else {
+            slot.dictionary = dictionary;
+        }
+        count.loads.increment();
+        slot.ready.complete(null);
+        if (memoryBudget > 0) {
+            trim(slot);
+        }
+        return dictionary;
+    }
+
+    private static void await(Slot slot) throws IOException {
+        try {
+            slot.ready.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioe) {
+                throw new IOException(ioe.getMessage(), ioe);
+            }
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private synchronized void trim(Slot keep) {
+        List<Map.Entry<Key, Slot>> loaded = new ArrayList<>();
+        long total = 0;
+        for (Map.Entry<Key, Slot> entry : slots.entrySet()) {
+            Slot slot = entry.getValue();
+            if (slot.ready.isDone() && !slot.ready.isCompletedExceptionally()) {
+                loaded.add(entry);
+                total += slot.memory;
+            }
+        }
+        loaded.sort(Comparator.comparingLong(entry -> entry.getValue().lastUse));
+        for (Map.Entry<Key, Slot> entry : loaded) {
+            if (total <= memoryBudget) {
+                break;
+            }
+            Slot slot = entry.getValue();
+            if (slot != keep && slots.remove(entry.getKey(), slot)) {
+                total -= slot.memory;
+                counters.get(entry.getKey().language()).evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Releases all loaded dictionaries of a language.
+     *
+     * @param language the language code
+     * @return number of dictionaries released
+     */
+    public int evict(String language) {
+        int evicted = 0;
+        for (Map.Entry<Key, Slot> entry : slots.entrySet()) {
+            Slot slot = entry.getValue();
+            if (entry.getKey().language().equals(language) && slot.ready.isDone()
+                    && slots.remove(entry.getKey(), slot)) {
+                counters.get(language).evictions.increment();
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Returns the usage counts of every language requested from this registry.
+     *
+     * @return statistics by language code
+     */
+    public Map<String, Statistics> getStatistics() {
+        Map<String, Long> memory = new TreeMap<>();
+        for (Map.Entry<Key, Slot> entry : slots.entrySet()) {
+            Slot slot = entry.getValue();
+            if (slot.get() != null) {
+                memory.merge(entry.getKey().language(), slot.memory, Long::sum);
+            }
+        }
+        Map<String, Statistics> result = new TreeMap<>();
+        for (Map.Entry<String, Counters> entry : counters.entrySet()) {
+            Counters count = entry.getValue();
+            result.put(entry.getKey(), new Statistics(count.loads.sum(), count.hits.sum(),
+                    count.evictions.sum(), memory.getOrDefault(entry.getKey(), 0L)));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,68 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+/**
+ * Damerau-Levenshtein distance restricted to adjacent transpositions (optimal
+ * string alignment), the edits that {@link SpellCorrector} generates: delete,
+ * insert, replace and swap.
+ */
+final class EditDistance {
+
+    private EditDistance() {
+        // static methods only
+    }
+
+    /**
+     * Computes the distance between two words, giving up when it exceeds a
+     * limit.
+     *
+     * @param a   first word
+     * @param b   second word
+     * @param max largest distance of interest
+     * @return the distance, or max + 1 if it is larger than max
+     */
+    static int distance(CharSequence a, CharSequence b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) {
+            return max + 1;
+        }
+        int[] previous2 = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                char cb = b.charAt(j - 1);
+                int cost = ca == cb ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(i - 2) == cb) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] tmp = previous2;
+            previous2 = previous;
+            previous = current;
+            current = tmp;
+        }
+        return Math.min(previous[m], max + 1);
+    }
+}
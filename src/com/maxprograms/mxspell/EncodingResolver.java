@@ -9,37 +9,64 @@
 *******************************************************************************/
 package com.maxprograms.mxspell;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.text.MessageFormat;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class EncodingResolver {
 
+    // declared names already resolved, shared by all dictionaries
+    private static final Map<String, Charset> resolved = new ConcurrentHashMap<>();
+
+    private static final class Available {
+        // sorted by canonical name, the order used when matching display names
+        static final List<Charset> charsets = new ArrayList<>(Charset.availableCharsets().values());
+    }
+
     private EncodingResolver() {
         // use getEncoding()
     }
 
     public static Charset getEncoding(File filename) throws IOException {
+        return getEncoding(Files.readAllBytes(filename.toPath()), filename.getPath());
+    }
+
+    /**
+     * Finds the encoding declared with SET in the raw bytes of an affix file.
+     * Affix files are ASCII compatible up to the SET line, so the bytes are
+     * scanned without decoding the file.
+     * 
+     * @param data     contents of the affix file
+     * @param filename name of the affix file, used in error messages
+     * @return the declared charset
+     * @throws IOException if SET is missing or names an unsupported charset
+     */
+    public static Charset getEncoding(byte[] data, String filename) throws IOException {
         Charset charset = null;
         String declared = "";
-        try (FileReader reader = new FileReader(filename)) {
-            try (BufferedReader bufferedReader = new BufferedReader(reader)) {
-                String line = "";
-                while ((line = bufferedReader.readLine()) != null) {
-                    if (line.stripLeading().startsWith("SET ")) {
-                        declared = line.strip().substring(4).stripLeading();
-                        charset = checkEncoding(declared);
-                        break;
-                    }
-                }
+        int start = 0;
+        while (start < data.length) {
+            int end = start;
+            while (end < data.length && data[end] != '\n' && data[end] != '\r') {
+                end++;
+            }
+            int i = start;
+            while (i < end && (data[i] == ' ' || data[i] == '\t')) {
+                i++;
             }
+            if (end - i > 4 && data[i] == 'S' && data[i + 1] == 'E' && data[i + 2] == 'T' && data[i + 3] == ' ') {
+                declared = new String(data, i + 4, end - i - 4, StandardCharsets.ISO_8859_1).strip();
+                charset = checkEncoding(declared);
+                break;
+            }
+            start = end + 1;
         }
         if (!declared.isEmpty() && charset == null) {
             MessageFormat mf = new MessageFormat(Messages.getString("EncodingResolver.0"));
@@ -55,11 +82,18 @@ public class EncodingResolver {
     }
 
     private static Charset checkEncoding(String string) {
-        Map<String, Charset> charsets = new TreeMap<>(Charset.availableCharsets());
-        Set<String> keys = charsets.keySet();
-        Iterator<String> i = keys.iterator();
-        while (i.hasNext()) {
-            Charset charset = charsets.get(i.next());
+        Charset charset = resolved.get(string);
+        if (charset == null) {
+            charset = findEncoding(string);
+            if (charset != null) {
+                resolved.put(string, charset);
+            }
+        }
+        return charset;
+    }
+
+    private static Charset findEncoding(String string) {
+        for (Charset charset : Available.charsets) {
             if (charset.displayName().equalsIgnoreCase(string)) {
                 return charset;
             }
@@ -71,9 +105,7 @@ public class EncodingResolver {
                 // skip non-numeric characteres at the start
             }
             string = string.substring(j);
-            i = keys.iterator();
-            while (i.hasNext()) {
-                Charset charset = charsets.get(i.next());
+            for (Charset charset : Available.charsets) {
                 if (charset.displayName().indexOf(string) != -1) {
                     return charset;
                 }
@@ -0,0 +1,193 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of affix flags. Every flag is encoded as a single char, whatever
+ * the FLAG type of the affix file: ASCII and UTF-8 flags are the character
+ * itself, long flags pack their two characters in one char and numeric flags
+ * store their value. Codes are sorted, so membership is a binary search.
+ * Dictionaries reuse a small number of distinct combinations, and
+ * {@link AffixParser} shares one instance among all words with the same flags.
+ */
+final class FlagSet {
+
+    // FLAG types of the affix file
+    static final String ASCII = "ASCII";
+    static final String UTF8 = "UTF-8";
+    static final String NUM = "num";
+    static final String LONG = "long";
+
+    // code of the flags that no affix can have
+    static final char UNKNOWN = 0;
+    // AffixChecker marks a missing flag with this code
+    private static final char NO_FLAG = 0xFFFF;
+
+    static final FlagSet EMPTY = new FlagSet(new char[0], new String[0]);
+
+    private final char[] codes;
+    private final String[] names;
+
+    FlagSet(char[] codes, String[] names) {
+        this.codes = codes;
+        this.names = names;
+    }
+
+    /**
+     * Builds a set from flag names.
+     *
+     * @param names the flag names
+     * @param type  the FLAG type of the affix file
+     * @return the set of flags
+     */
+    static FlagSet of(String[] names, String type) {
+        char[] codes = new char[names.length];
+        for (int i = 0; i < names.length; i++) {
+            codes[i] = encode(names[i], type);
+        }
+        return sorted(codes, names.clone());
+    }
+
+    /**
+     * Guesses the FLAG type of flag names read without their affix file: single
+     * characters are ASCII flags, numbers are numeric flags and pairs of
+     * characters are long flags. A few numbers are also valid long flags, so
+     * the guess can be wrong; code that has the affix file must use its type.
+     *
+     * @param names the flag names
+     * @return the FLAG type
+     */
+    static String guessType(String[] names) {
+        boolean single = true;
+        boolean numeric = true;
+        boolean pairs = true;
+        for (String name : names) {
+            single = single && name.length() == 1;
+            numeric = numeric && !name.isEmpty() && name.chars().allMatch(c -> c >= '0' && c <= '9');
+            pairs = pairs && name.length() == 2;
+        }
+        if (single) {
+            return UTF8;
+        }
+        return numeric || !pairs ? NUM : LONG;
+    }
+
+    /**
+     * Encodes a flag name. A long flag packs its two characters in one char, so
+     * both must be in the range of ISO-8859-1; other long flags, numbers out of
+     * range and empty names get {@link #UNKNOWN} instead of a code that could
+     * belong to another flag.
+     *
+     * @param name the flag name
+     * @param type the FLAG type of the affix file
+     * @return the code of the flag
+     */
+    static char encode(String name, String type) {
+        if (LONG.equals(type)) {
+            int length = name.length();
+            if (length == 1 && name.charAt(0) <= 0xFF) {
+                return name.charAt(0);
+            }
+            if (length == 2 && name.charAt(0) <= 0xFF && name.charAt(1) <= 0xFF) {
+                char code = (char) (name.charAt(0) << 8 | name.charAt(1));
+                return code != NO_FLAG ? code : UNKNOWN;
+            }
+            return UNKNOWN;
+        }
+        if (NUM.equals(type)) {
+            try {
+                int value = Integer.parseInt(name);
+                return value > 0 && value < NO_FLAG ? (char) value : UNKNOWN;
+            } catch (NumberFormatException e) {
+                return UNKNOWN;
+            }
+        }
+        return name.isEmpty() || name.charAt(0) == NO_FLAG ? UNKNOWN : name.charAt(0);
+    }
+
+    static FlagSet sorted(char[] codes, String[] names) {
+        // sort names along with their codes
+        Integer[] order = new Integer[codes.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Character.compare(codes[a], codes[b]));
+        char[] sortedCodes = new char[codes.length];
+        String[] sortedNames = new String[names.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedCodes[i] = codes[order[i]];
+            sortedNames[i] = names[order[i]];
+        }
+        return new FlagSet(sortedCodes, sortedNames);
+    }
+
+    boolean contains(char code) {
+        char[] array = codes;
+        if (array.length < 8) {
+            for (char c : array) {
+                if (c == code) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return Arrays.binarySearch(array, code) >= 0;
+    }
+
+    boolean contains(String name) {
+        for (String n : names) {
+            if (n.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int size() {
+        return codes.length;
+    }
+
+    char codeAt(int index) {
+        return codes[index];
+    }
+
+    String[] getNames() {
+        return names;
+    }
+
+    /**
+     * Estimates the heap used by the set: the object, its two arrays and the
+     * flag names.
+     *
+     * @return approximate size in bytes
+     */
+    long memoryUsage() {
+        long total = 16 + 16 + codes.length * 2L + 16 + names.length * 4L;
+        for (String name : names) {
+            total += WordStore.stringSize(name);
+        }
+        return total;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof FlagSet other) {
+            return Arrays.equals(codes, other.codes);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(codes);
+    }
+}
@@ -0,0 +1,71 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import java.text.Collator;
+import java.text.Normalizer;
+import java.util.BitSet;
+import java.util.Locale;
+
+/**
+ * Reduces words to the form used as key in the word index. Two words that the
+ * locale Collator considers equal produce the same key: precomposed and
+ * decomposed accents are merged with NFC and the characters the Collator
+ * ignores (control and zero width format characters) are removed.
+ */
+final class KeyNormalizer {
+
+    // first combining diacritical mark, text below it never changes with NFC
+    private static final char FIRST_COMBINING = '\u0300';
+
+    private final BitSet ignorable;
+
+    KeyNormalizer(Locale locale) {
+        Collator collator = Collator.getInstance(locale);
+        ignorable = new BitSet(0x10000);
+        for (int c = 0; c < 0x10000; c++) {
+            int type = Character.getType(c);
+            if ((type == Character.CONTROL || type == Character.FORMAT)
+                    && collator.compare("", String.valueOf((char) c)) == 0) {
+                ignorable.set(c);
+            }
+        }
+    }
+
+    boolean isNormalized(CharSequence word) {
+        boolean plain = true;
+        int length = word.length();
+        for (int i = 0; i < length; i++) {
+            char c = word.charAt(i);
+            if (ignorable.get(c)) {
+                return false;
+            }
+            if (c >= FIRST_COMBINING) {
+                plain = false;
+            }
+        }
+        return plain || Normalizer.isNormalized(word, Normalizer.Form.NFC);
+    }
+
+    String normalize(CharSequence word) {
+        if (isNormalized(word)) {
+            return word.toString();
+        }
+        String composed = Normalizer.normalize(word, Normalizer.Form.NFC);
+        StringBuilder builder = new StringBuilder(composed.length());
+        for (int i = 0; i < composed.length(); i++) {
+            char c = composed.charAt(i);
+            if (!ignorable.get(c)) {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,170 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Word index read directly from a memory mapped compiled dictionary. The
+ * layout mirrors {@link WordIndex}: a table of record offsets probed linearly,
+ * followed by the records.
+ *
+ * <pre>
+ * int count
+ * int tableSize
+ * int[tableSize] record offsets, 0 for empty slots
+ * records: int hash, int flag set (-1 for none),
+ *          char key length, key chars,
+ *          char word length (0xFFFF when equal to the key), word chars
+ * </pre>
+ */
+final class MappedWordIndex implements WordStore {
+
+    private static final char SAME_AS_KEY = 0xFFFF;
+    private static final int TABLE = 8;
+
+    private final ByteBuffer buffer;
+    private final FlagSet[] flagSets;
+    private final int size;
+    private final int mask;
+
+    MappedWordIndex(ByteBuffer buffer, FlagSet[] flagSets) {
+        this.buffer = buffer;
+        this.flagSets = flagSets;
+        size = buffer.getInt(0);
+        mask = buffer.getInt(4) - 1;
+    }
+
+    static byte[] build(WordStore words, ToIntFunction<FlagSet> flagSetIds) throws IOException {
+        List<String> keys = new ArrayList<>(words.size());
+        List<DictionaryEntry> entries = new ArrayList<>(words.size());
+        words.forEach((key, entry) -> {
+            keys.add(key);
+            entries.add(entry);
+        });
+        int capacity = 16;
+        while (capacity / 2 < keys.size()) {
+            capacity <<= 1;
+        }
+        int tableMask = capacity - 1;
+        int[] table = new int[capacity];
+        int base = TABLE + 4 * capacity;
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(records)) {
+            for (int j = 0; j < keys.size(); j++) {
+                String key = keys.get(j);
+                DictionaryEntry entry = entries.get(j);
+                int h = WordIndex.hash(key);
+                int i = h & tableMask;
+                while (table[i] != 0) {
+                    i = (i + 1) & tableMask;
+                }
+                table[i] = base + out.size();
+                out.writeInt(h);
+                out.writeInt(entry.getFlagSet() == null ? -1 : flagSetIds.applyAsInt(entry.getFlagSet()));
+                out.writeChar(key.length());
+                out.writeChars(key);
+                if (key.equals(entry.getWord())) {
+                    out.writeChar(SAME_AS_KEY);
+                } else {
+                    out.writeChar(entry.getWord().length());
+                    out.writeChars(entry.getWord());
+                }
+            }
+        }
+        ByteArrayOutputStream section = new ByteArrayOutputStream(base + records.size());
+        try (DataOutputStream out = new DataOutputStream(section)) {
+            out.writeInt(keys.size());
+            out.writeInt(capacity);
+            for (int offset : table) {
+                out.writeInt(offset);
+            }
+            records.writeTo(out);
+        }
+        return section.toByteArray();
+    }
+
+    @Override
+    public DictionaryEntry get(CharSequence key) {
+        int h = WordIndex.hash(key);
+        int i = h & mask;
+        int offset;
+        while ((offset = buffer.getInt(TABLE + 4 * i)) != 0) {
+            if (buffer.getInt(offset) == h && sameKey(offset + 8, key)) {
+                return readEntry(offset);
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    private boolean sameKey(int position, CharSequence key) {
+        int length = buffer.getChar(position);
+        if (length != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.getChar(position + 2 + 2 * i) != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String readString(int position, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = buffer.getChar(position + 2 * i);
+        }
+        return new String(chars);
+    }
+
+    private DictionaryEntry readEntry(int offset) {
+        int flagSet = buffer.getInt(offset + 4);
+        int keyLength = buffer.getChar(offset + 8);
+        int wordPosition = offset + 10 + 2 * keyLength;
+        int wordLength = buffer.getChar(wordPosition);
+        String word = wordLength == SAME_AS_KEY ? readString(offset + 10, keyLength)
+                : readString(wordPosition + 2, wordLength);
+        return new DictionaryEntry(word, flagSet == -1 ? null : flagSets[flagSet]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long memoryUsage() {
+        // the index stays in the mapped file, only the flag sets are on the heap
+        long total = 16 + flagSets.length * 4L;
+        for (FlagSet flagSet : flagSets) {
+            total += flagSet.memoryUsage();
+        }
+        return total;
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, DictionaryEntry> action) {
+        for (int i = 0; i <= mask; i++) {
+            int offset = buffer.getInt(TABLE + 4 * i);
+            if (offset != 0) {
+                action.accept(readString(offset + 10, buffer.getChar(offset + 8)), readEntry(offset));
+            }
+        }
+    }
+}
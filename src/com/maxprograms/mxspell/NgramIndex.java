@@ -0,0 +1,278 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Inverted index from character bigrams to the dictionary words that contain
+ * them, used to suggest words that share many bigrams with a misspelling when
+ * no edit finds a match. Words are lowercased and padded with a boundary mark
+ * at both ends, so that first and last characters weigh as much as the rest.
+ * <p>
+ * Similarity is the Dice coefficient of the two sets of bigrams, computed from
+ * the posting lists without reading the candidate words.
+ */
+final class NgramIndex {
+
+    // Hunspell defaults for MAXNGRAMSUGS and MAXDIFF
+    static final int DEFAULT_SUGGESTIONS = 4;
+    static final int DEFAULT_MAX_DIFF = 5;
+
+    private static final char BOUNDARY = '\u0000';
+
+    private final String[] words;
+    // heap used by the words when they are not the Strings of a WordIndex
+    private final long wordBytes;
+    // number of distinct bigrams of each word
+    private final byte[] gramCounts;
+    // open addressing table of run numbers plus one, 0 marks an empty slot
+    private final int[] table;
+    private final int mask;
+    // each distinct bigram owns the run of ids from runStarts[r] to runStarts[r + 1]
+    private final int[] runGrams;
+    private final int[] runStarts;
+    private final int[] ids;
+    private final Locale locale;
+    // counters of shared bigrams, one per word, reused by searches and left at zero
+    private final Queue<int[]> counters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledCounters = new AtomicInteger();
+
+    private NgramIndex(String[] words, long wordBytes, byte[] gramCounts, int[] table, int[] runGrams,
+            int[] runStarts, int[] ids, Locale locale) {
+        this.words = words;
+        this.wordBytes = wordBytes;
+        this.gramCounts = gramCounts;
+        this.table = table;
+        this.mask = table.length - 1;
+        this.runGrams = runGrams;
+        this.runStarts = runStarts;
+        this.ids = ids;
+        this.locale = locale;
+    }
+
+    /**
+     * Builds the index of a word store in parallel on the common fork-join
+     * pool.
+     *
+     * @param store  the words to index
+     * @param locale locale used to lowercase the words
+     * @return the index
+     */
+    static NgramIndex build(WordStore store, Locale locale) {
+        List<String> keys = new ArrayList<>(store.size());
+        store.forEach((key, entry) -> keys.add(key));
+        String[] words = keys.toArray(new String[keys.size()]);
+        long wordBytes = 0;
+        if (!(store instanceof WordIndex)) {
+            // compact and mapped stores make a new String for each key
+            for (String word : words) {
+                wordBytes += WordStore.stringSize(word);
+            }
+        }
+
+        int[][] grams = new int[words.length][];
+        IntStream.range(0, words.length).parallel().forEach(i -> grams[i] = grams(words[i].toLowerCase(locale)));
+        byte[] gramCounts = new byte[words.length];
+        int total = 0;
+        for (int i = 0; i < words.length; i++) {
+            gramCounts[i] = (byte) Math.min(grams[i].length, 255);
+            total = Math.addExact(total, grams[i].length);
+        }
+        long[] pairs = new long[total];
+        int position = 0;
+        for (int i = 0; i < words.length; i++) {
+            for (int gram : grams[i]) {
+                pairs[position++] = (long) gram << 32 | i;
+            }
+            grams[i] = null;
+        }
+        Arrays.parallelSort(pairs);
+
+        int distinctGrams = 0;
+        for (int i = 0; i < pairs.length; i++) {
+            if (i == 0 || (int) (pairs[i] >>> 32) != (int) (pairs[i - 1] >>> 32)) {
+                distinctGrams++;
+            }
+        }
+        int capacity = 16;
+        while (capacity < distinctGrams * 2L) {
+            capacity <<= 1;
+        }
+        int[] table = new int[capacity];
+        int[] runGrams = new int[distinctGrams];
+        int[] runStarts = new int[distinctGrams + 1];
+        int[] ids = new int[pairs.length];
+        int tableMask = capacity - 1;
+        int run = 0;
+        for (int i = 0; i < pairs.length; i++) {
+            int gram = (int) (pairs[i] >>> 32);
+            ids[i] = (int) pairs[i];
+            if (i == 0 || gram != (int) (pairs[i - 1] >>> 32)) {
+                runGrams[run] = gram;
+                runStarts[run] = i;
+                int slot = mix(gram) & tableMask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & tableMask;
+                }
+                table[slot] = ++run;
+            }
+        }
+        runStarts[distinctGrams] = pairs.length;
+        return new NgramIndex(words, wordBytes, gramCounts, table, runGrams, runStarts, ids, locale);
+    }
+
+    /**
+     * Returns the distinct bigrams of a lowercased word, each one packed in an
+     * int.
+     */
+    private static int[] grams(String word) {
+        int length = word.length();
+        int[] result = new int[length + 1];
+        int count = 0;
+        char previous = BOUNDARY;
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? word.charAt(i) : BOUNDARY;
+            result[count++] = previous << 16 | c;
+            previous = c;
+        }
+        Arrays.sort(result, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || result[i] != result[unique - 1]) {
+                result[unique++] = result[i];
+            }
+        }
+        return unique == result.length ? result : Arrays.copyOf(result, unique);
+    }
+
+    private static int mix(int h) {
+        int x = h * 0x9E3779B9;
+        return x ^ (x >>> 16);
+    }
+
+    /**
+     * Finds the words most similar to a misspelled word.
+     *
+     * @param word        normalized word
+     * @param max         maximum number of words, MAXNGRAMSUGS
+     * @param maxDiff     similarity factor from 0 (only close words) to 10 (any
+     *                    word), MAXDIFF, or -1 for the default
+     * @param onlyMaxDiff true to drop all the words below the similarity
+     *                    required by maxDiff, ONLYMAXDIFF; otherwise the best
+     *                    word is kept even if it is not similar enough
+     * @return the keys of the words found, most similar first
+     */
+    List<String> search(String word, int max, int maxDiff, boolean onlyMaxDiff) {
+        if (max <= 0 || word.isEmpty()) {
+            return List.of();
+        }
+        int[] grams = grams(word.toLowerCase(locale));
+        // shared bigrams of every word that has at least one
+        int[] shared = counters.poll();
+        if (shared == null) {
+            shared = new int[words.length];
+        } else {
+            pooledCounters.decrementAndGet();
+        }
+        int[] touched = new int[64];
+        int touchedCount = 0;
+        for (int gram : grams) {
+            int slot = mix(gram) & mask;
+            while (table[slot] != 0) {
+                int run = table[slot] - 1;
+                if (runGrams[run] == gram) {
+                    for (int i = runStarts[run]; i < runStarts[run + 1]; i++) {
+                        int id = ids[i];
+                        if (shared[id]++ == 0) {
+                            if (touchedCount == touched.length) {
+                                touched = Arrays.copyOf(touched, touchedCount * 2);
+                            }
+                            touched[touchedCount++] = id;
+                        }
+                    }
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        // best candidates by similarity, kept sorted in a small array
+        int[] best = new int[max];
+        double[] scores = new double[max];
+        int found = 0;
+        for (int t = 0; t < touchedCount; t++) {
+            int id = touched[t];
+            double score = 2.0 * shared[id] / (grams.length + (gramCounts[id] & 0xFF));
+            shared[id] = 0;
+            if (found == max && !better(score, id, scores[max - 1], best[max - 1])) {
+                continue;
+            }
+            int position = found < max ? found++ : max - 1;
+            while (position > 0 && better(score, id, scores[position - 1], best[position - 1])) {
+                best[position] = best[position - 1];
+                scores[position] = scores[position - 1];
+                position--;
+            }
+            best[position] = id;
+            scores[position] = score;
+        }
+        // keep a few counters for later searches, one per processor at most
+        if (pooledCounters.incrementAndGet() <= Runtime.getRuntime().availableProcessors()) {
+            counters.offer(shared);
+        } else {
+            pooledCounters.decrementAndGet();
+        }
+
+        double minimum = minimumSimilarity(maxDiff);
+        List<String> result = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            if (scores[i] >= minimum || (i == 0 && !onlyMaxDiff)) {
+                result.add(words[best[i]]);
+            }
+        }
+        return result;
+    }
+
+    private boolean better(double score, int id, double otherScore, int otherId) {
+        if (score != otherScore) {
+            return score > otherScore;
+        }
+        return words[id].compareTo(words[otherId]) < 0;
+    }
+
+    /**
+     * Maps MAXDIFF to the minimum Dice similarity of a good suggestion: 0.8
+     * for 0, 0.4 for the default 5 and 0 for 10.
+     */
+    private static double minimumSimilarity(int maxDiff) {
+        int diff = maxDiff < 0 ? DEFAULT_MAX_DIFF : Math.min(maxDiff, 10);
+        return (10 - diff) * 0.08;
+    }
+
+    /**
+     * Estimates the heap used by the index, including the word Strings unless
+     * they belong to a {@link WordIndex} and the counters kept for reuse by
+     * searches.
+     *
+     * @return approximate size in bytes
+     */
+    long memoryUsage() {
+        return (ids.length + table.length + runGrams.length + runStarts.length + words.length) * 4L
+                + gramCounts.length + wordBytes + pooledCounters.get() * (words.length * 4L + 16);
+    }
+}
@@ -0,0 +1,183 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+/**
+ * Splits the text read from a Reader in words, keeping track of the offset of
+ * each word. Text is read in blocks and only the current word is kept, so
+ * memory use does not depend on the size of the text.
+ * <p>
+ * The text is cut with the rules of {@link WordTokenizer}: a word is a run of
+ * word characters, with apostrophes between them, trimmed by the tokenizer,
+ * so the words are the same that the tokenizer finds in the whole text. Only
+ * words longer than {@link #MAX_TOKEN_LENGTH} characters are skipped.
+ */
+final class ReaderTokenizer {
+
+    static final int MAX_TOKEN_LENGTH = 256;
+
+    private final Reader reader;
+    private final WordTokenizer tokenizer;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private boolean eof;
+    // a code point read ahead to check an apostrophe, or -1
+    private int pushedBack = -1;
+    // characters returned by nextCodePoint()
+    private long consumed;
+
+    private final char[] token = new char[MAX_TOKEN_LENGTH];
+    private final CharBuffer tokenText = CharBuffer.wrap(token);
+
+    private String word;
+    private long offset;
+
+    ReaderTokenizer(Reader reader, WordTokenizer tokenizer) {
+        this.reader = reader;
+        this.tokenizer = tokenizer;
+    }
+
+    /**
+     * Moves to the next word.
+     *
+     * @return false if there are no more words
+     * @throws IOException if the text cannot be read
+     */
+    boolean next() throws IOException {
+        while (true) {
+            int c;
+            while ((c = nextCodePoint()) != -1 && !tokenizer.isWordChar(c)) {
+                // skip separators
+            }
+            if (c == -1) {
+                word = null;
+                return false;
+            }
+            long tokenOffset = consumed - Character.charCount(c);
+            int length = 0;
+            boolean tooLong = false;
+            while (true) {
+                if (length + Character.charCount(c) <= MAX_TOKEN_LENGTH) {
+                    length += Character.toChars(c, token, length);
+                } else {
+                    tooLong = true;
+                }
+                c = nextCodePoint();
+                if (c == -1) {
+                    break;
+                }
+                if (tokenizer.isWordChar(c)) {
+                    continue;
+                }
+                if (!WordTokenizer.isApostrophe(c)) {
+                    break;
+                }
+                // an apostrophe belongs to the word only if a word character follows
+                int apostrophe = c;
+                c = nextCodePoint();
+                if (c == -1 || !tokenizer.isWordChar(c)) {
+                    unread(c);
+                    break;
+                }
+                if (length < MAX_TOKEN_LENGTH) {
+                    token[length++] = (char) apostrophe;
+                } else {
+                    tooLong = true;
+                }
+            }
+            if (!tooLong && emit(length, tokenOffset)) {
+                return true;
+            }
+        }
+    }
+
+    private boolean emit(int length, long tokenOffset) {
+        int[] span = { -1, -1 };
+        tokenText.limit(length);
+        tokenizer.tokenize(tokenText, (start, end) -> {
+            span[0] = start;
+            span[1] = end;
+        });
+        if (span[0] == -1) {
+            return false;
+        }
+        word = new String(token, span[0], span[1] - span[0]);
+        offset = tokenOffset + span[0];
+        return true;
+    }
+
+    private int nextCodePoint() throws IOException {
+        int c = pushedBack;
+        if (c != -1) {
+            pushedBack = -1;
+        } else {
+            c = read();
+            if (c != -1 && Character.isHighSurrogate((char) c)) {
+                int low = read();
+                if (low != -1 && Character.isLowSurrogate((char) low)) {
+                    c = Character.toCodePoint((char) c, (char) low);
+                } else if (low != -1) {
+                    // a lone surrogate, the character just read is still in the buffer
+                    position--;
+                }
+            }
+        }
+        if (c != -1) {
+            consumed += Character.charCount(c);
+        }
+        return c;
+    }
+
+    private void unread(int c) {
+        if (c != -1) {
+            pushedBack = c;
+            consumed -= Character.charCount(c);
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            if (eof) {
+                return -1;
+            }
+            position = 0;
+            limit = 0;
+            int count;
+            while ((count = reader.read(buffer)) == 0) {
+                // a Reader may return 0 characters, try again
+            }
+            if (count == -1) {
+                eof = true;
+                return -1;
+            }
+            limit = count;
+        }
+        return buffer[position++];
+    }
+
+    String getWord() {
+        return word;
+    }
+
+    /**
+     * Returns the offset of the current word, counted in UTF-16 characters from
+     * the start of the text.
+     *
+     * @return the offset
+     */
+    long getOffset() {
+        return offset;
+    }
+}
@@ -11,42 +11,180 @@ package com.maxprograms.mxspell;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * Checks spelling with a Hunspell dictionary. Instances keep no per-call state,
+ * so one checker can serve any number of threads. Dictionaries are obtained
+ * from {@link DictionaryRegistry#getDefault()}, so checkers for the same
+ * language share one copy. Learned and ignored words belong to the data folder
+ * of the checker, not to the shared dictionary.
+ */
 public class SpellChecker {
 
-    private Map<String, String> dictionaries;
-    private Dictionary dictionary;
-    private SpellCorrector corrector;
+    /**
+     * A misspelled word found in a text.
+     * 
+     * @param word   the misspelled word
+     * @param offset position of the word in the text, in UTF-16 characters
+     * @param length length of the word, in UTF-16 characters
+     */
+    public record Misspelling(String word, long offset, int length) {
+    }
+
+    private final Dictionary dictionary;
+    private final UserWords userWords;
+    private final SpellCorrector corrector;
+    private volatile SuggestionCache cache;
 
     // language must be a valid BCP47 language code
     public SpellChecker(String language, String dictionaryFolder) throws IOException {
+        this(language, dictionaryFolder, null);
+    }
+
+    /**
+     * Creates a spell checker that keeps learned and ignored words in the given
+     * folder instead of the dictionary location, which may be read-only.
+     * <p>
+     * Checkers created with the same language and dictionary folder share one
+     * dictionary, whatever their data folder. A word learned or ignored through
+     * a checker is accepted by all the checkers that use the same data folder
+     * and by no other, so each user can have its own folder.
+     * 
+     * @param language         a valid BCP47 language code
+     * @param dictionaryFolder folder that contains the dictionaries
+     * @param dataFolder       writable folder for learned and ignored words
+     * @throws IOException if the dictionary cannot be loaded
+     */
+    public SpellChecker(String language, String dictionaryFolder, File dataFolder) throws IOException {
+        this(language, dictionaryFolder, dataFolder, DictionaryRegistry.getDefault());
+    }
+
+    /**
+     * Creates a spell checker with a dictionary from the given registry instead
+     * of the default one, for example a registry that loads its dictionaries
+     * with different {@link Dictionary.Options}. Learned and ignored words are
+     * kept in files of the data folder, so they are shared with every checker
+     * that uses the same folder, whatever its registry or dictionary.
+     * 
+     * @param language         a valid BCP47 language code
+     * @param dictionaryFolder folder that contains the dictionaries
+     * @param dataFolder       writable folder for learned and ignored words, or
+     *                         null to use the dictionary location
+     * @param registry         the registry that loads and shares the dictionary
+     * @throws IOException if the dictionary cannot be loaded
+     */
+    public SpellChecker(String language, String dictionaryFolder, File dataFolder, DictionaryRegistry registry)
+            throws IOException {
+        dictionary = registry.get(language, dictionaryFolder);
+        userWords = dataFolder != null ? new UserWords(dataFolder) : dictionary.getUserWords();
+        corrector = new SpellCorrector(dictionary, userWords, language);
+    }
+
+    static Dictionary loadDictionary(String language, String dictionaryFolder, Dictionary.Options options)
+            throws IOException {
         File dataFolder = new File(new File(dictionaryFolder), language);
+        Dictionary loaded = null;
         if (dataFolder.exists()) {
             if (!dataFolder.isDirectory()) {
                 MessageFormat mf = new MessageFormat(Messages.getString("SpellChecker.2"));
                 throw new IOException(mf.format(new String[] { dataFolder.getAbsolutePath() }));
             }
-            dictionary = makeDictionary(language, dataFolder);
+            loaded = makeDictionary(language, dataFolder, options);
         }
-        if (dictionary == null) {
-            dictionaries = loadDictionaryList(dictionaryFolder);
+        if (loaded == null) {
+            Map<String, String> dictionaries = loadDictionaryList(dictionaryFolder);
             if (!dictionaries.containsKey(language)) {
                 MessageFormat mf = new MessageFormat(Messages.getString("SpellChecker.0"));
                 throw new IOException(mf.format(new String[] { language }));
             }
             String zip = dictionaries.get(language);
-            dictionary = new Dictionary(language, zip);
+            loaded = new Dictionary(language, zip, options);
+        }
+        return loaded;
+    }
+
+    /**
+     * Enables caching of suggestions. A cache must not be shared between
+     * checkers of different languages.
+     * 
+     * @param cache the cache to use, or null to disable caching
+     */
+    public void setSuggestionCache(SuggestionCache cache) {
+        this.cache = cache;
+    }
+
+    public SuggestionCache getSuggestionCache() {
+        return cache;
+    }
+
+    /**
+     * Selects the largest edit distance of suggestions, see
+     * {@link SpellCorrector#setMaxDistance(int)}. Cached suggestions are
+     * discarded.
+     * 
+     * @param distance largest edit distance, or 0 to generate candidates
+     */
+    public void setSuggestionDistance(int distance) {
+        corrector.setMaxDistance(distance);
+        SuggestionCache current = cache;
+        if (current != null) {
+            current.clear();
         }
-        corrector = new SpellCorrector(dictionary, language);
     }
 
     public String[] suggest(String word) {
-        String[] suggestions = corrector.suggest(word);
+        SuggestionCache current = cache;
+        if (current == null) {
+            return computeSuggestions(word);
+        }
+        long generation = userWords.getGeneration();
+        String[] suggestions = current.get(word, generation);
+        if (suggestions == null) {
+            suggestions = computeSuggestions(word);
+            current.put(word, suggestions, generation);
+        }
+        return suggestions;
+    }
+
+    /**
+     * Returns the best suggestions for a word, most likely first, see
+     * {@link SpellCorrector#suggest(String, int)}. Results are not cached.
+     * 
+     * @param word           the word to check
+     * @param maxSuggestions maximum number of suggestions
+     * @return the suggestions, an empty array if the word is correct
+     */
+    public String[] suggest(String word, int maxSuggestions) {
+        String[] suggestions = refine(word, corrector.suggest(word, maxSuggestions));
+        return suggestions.length > maxSuggestions ? Arrays.copyOf(suggestions, maxSuggestions) : suggestions;
+    }
+
+    private String[] computeSuggestions(String word) {
+        return refine(word, corrector.suggest(word));
+    }
+
+    private String[] refine(String word, String[] suggestions) {
         if (suggestions.length == 1 && suggestions[0].equals(word)) {
             // unknown word, try changing case
             if (checkUppercase(word) || checkCapitalized(word)) {
@@ -80,8 +218,7 @@ public class SpellChecker {
                         otherChoices.add(capitalized);
                     }
                 }
-                String[] alternatives = corrector.suggest(candidate);
-                if (alternatives.length == 0) {
+                if (corrector.isCorrect(candidate)) {
                     // found a suggestion
                     if (!otherChoices.contains(candidate)) {
                         otherChoices.add(candidate);
@@ -89,7 +226,9 @@ public class SpellChecker {
                 }
             }
             if (otherChoices.isEmpty()) {
-                return suggestions;
+                // no edit found a word, look for words with similar n-grams
+                String[] similar = corrector.suggestSimilar(word);
+                return similar.length > 0 ? similar : suggestions;
             }
             return otherChoices.toArray(new String[otherChoices.size()]);
         }
@@ -98,48 +237,39 @@ public class SpellChecker {
 
     private boolean checkUppercase(String word) {
         if (corrector.isUppercase(word)) {
-            String lower = corrector.toLowerCase(word);
-            String[] alternatives = corrector.suggest(lower);
-            return alternatives.length == 0;
+            return corrector.isCorrect(corrector.toLowerCase(word));
         }
         return false;
     }
 
     private boolean checkCapitalized(String word) {
         if (corrector.isCapitalized(word)) {
-            String lower = corrector.toLowerCase(word);
-            String[] alternatives = corrector.suggest(lower);
-            return alternatives.length == 0;
+            return corrector.isCorrect(corrector.toLowerCase(word));
         }
         return false;
     }
 
     private boolean checkMixedCase(String word) {
         if (corrector.isMixedCase(word)) {
-            String lower = corrector.toLowerCase(word);
-            String[] alternatives = corrector.suggest(lower);
-            return alternatives.length == 0;
+            return corrector.isCorrect(corrector.toLowerCase(word));
         }
         return false;
     }
 
+    /**
+     * Checks the spelling of a word. Only dictionary lookups are performed, no
+     * suggestions are generated.
+     * 
+     * @param word the word to check
+     * @return true if the word is spelled correctly
+     */
+    public boolean isCorrect(String word) {
+        return corrector.isCorrect(word);
+    }
+
     public Map<String, String[]> checkString(String text) {
         Map<String, String[]> result = new HashMap<>();
-        String[] words = text.split("\s+");
-        for (String word : words) {
-            char first = word.charAt(0);
-            char last = word.charAt(word.length() - 1);
-            while (!Character.isLetter(first) && word.length() > 1) {
-                word = word.substring(1);
-                first = word.charAt(0);
-            }
-            while (!Character.isLetter(last) && word.length() > 1) {
-                word = word.substring(0, word.length() - 1);
-                last = word.charAt(word.length() - 1);
-            }
-            if (word.length() == 1 && !Character.isLetter(first)) {
-                continue;
-            }
+        for (String word : getWords(text)) {
             String[] suggestions = suggest(word);
             if (suggestions.length > 0) {
                 result.put(word, suggestions);
@@ -148,9 +278,145 @@ public class SpellChecker {
         return result;
     }
 
-    private Dictionary makeDictionary(String language, File dataFolder) throws IOException {
+    /**
+     * Checks many texts at once, with the same results as calling
+     * {@link #checkString(String)} for each one. The texts are split in words
+     * in parallel and every distinct word is checked only once, also in
+     * parallel on the common fork-join pool, so repeated words in a batch cost
+     * a single lookup.
+     * 
+     * @param texts the texts to check
+     * @return the misspelled words of each text with their suggestions, in the
+     *         order of the texts
+     */
+    public List<Map<String, String[]>> checkAll(List<String> texts) {
+        List<List<String>> words = texts.parallelStream().map(this::getWords).toList();
+        Set<String> distinct = new HashSet<>();
+        for (List<String> list : words) {
+            distinct.addAll(list);
+        }
+        Map<String, String[]> verdicts = new ConcurrentHashMap<>(distinct.size() * 4 / 3 + 1);
+        distinct.parallelStream().forEach(word -> {
+            String[] suggestions = isCorrect(word) ? new String[] {} : suggest(word);
+            if (suggestions.length > 0) {
+                verdicts.put(word, suggestions);
+            }
+        });
+        List<Map<String, String[]>> result = new ArrayList<>(texts.size());
+        for (List<String> list : words) {
+            Map<String, String[]> map = new HashMap<>();
+            for (String word : list) {
+                String[] suggestions = verdicts.get(word);
+                if (suggestions != null) {
+                    map.put(word, suggestions.clone());
+                }
+            }
+            result.add(map);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the misspelled words of a text without generating suggestions. Use
+     * {@link #suggest(String)} later for the words that need them.
+     * 
+     * @param text the text to check
+     * @return the misspelled words, without duplicates, in order of appearance
+     */
+    public List<String> getMisspelled(String text) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String word : getWords(text)) {
+            if (!result.contains(word) && !isCorrect(word)) {
+                result.add(word);
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Checks a text as it is read, reporting each misspelled word with its
+     * position. Only a small block of the text is in memory at any time, so
+     * texts of any size can be checked. No suggestions are generated; use
+     * {@link #suggest(String)} for the words that need them. The reader is not
+     * closed.
+     * 
+     * @param reader   the text to check
+     * @param consumer receives the misspelled words in order of appearance
+     * @throws IOException if the text cannot be read
+     */
+    public void check(Reader reader, Consumer<Misspelling> consumer) throws IOException {
+        ReaderTokenizer tokenizer = new ReaderTokenizer(reader, dictionary.getTokenizer());
+        Misspelling misspelling;
+        while ((misspelling = nextMisspelling(tokenizer)) != null) {
+            consumer.accept(misspelling);
+        }
+    }
+
+    private Misspelling nextMisspelling(ReaderTokenizer tokenizer) throws IOException {
+        while (tokenizer.next()) {
+            String word = tokenizer.getWord();
+            if (!isCorrect(word)) {
+                return new Misspelling(word, tokenizer.getOffset(), word.length());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks a text read from a stream, see {@link #check(Reader, Consumer)}.
+     * The stream is not closed.
+     * 
+     * @param input    the text to check
+     * @param charset  encoding of the text
+     * @param consumer receives the misspelled words in order of appearance
+     * @throws IOException if the text cannot be read
+     */
+    public void check(InputStream input, Charset charset, Consumer<Misspelling> consumer) throws IOException {
+        check(new InputStreamReader(input, charset), consumer);
+    }
+
+    /**
+     * Returns the misspelled words of a text as a lazy stream; the text is read
+     * as the stream is consumed, see {@link #check(Reader, Consumer)}. Errors
+     * reading the text are thrown as {@link UncheckedIOException}. Closing the
+     * stream does not close the reader.
+     * 
+     * @param reader the text to check
+     * @return the misspelled words in order of appearance
+     */
+    public Stream<Misspelling> misspellings(Reader reader) {
+        ReaderTokenizer tokenizer = new ReaderTokenizer(reader, dictionary.getTokenizer());
+        Spliterator<Misspelling> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Misspelling> action) {
+                try {
+                    Misspelling misspelling = nextMisspelling(tokenizer);
+                    if (misspelling == null) {
+                        return false;
+                    }
+                    action.accept(misspelling);
+                    return true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    private List<String> getWords(String text) {
+        List<String> result = new ArrayList<>();
+        dictionary.getTokenizer().tokenize(text, (start, end) -> result.add(text.substring(start, end)));
+        return result;
+    }
+
+    private static Dictionary makeDictionary(String language, File dataFolder, Dictionary.Options options)
+            throws IOException {
         String affix = null;
         String words = null;
+        File compiled = null;
         File[] list = dataFolder.listFiles();
         for (int i = 0; i < list.length; i++) {
             if (list[i].getName().endsWith(".aff")) {
@@ -159,14 +425,21 @@ public class SpellChecker {
             if (list[i].getName().endsWith(".dic")) {
                 words = list[i].getAbsolutePath();
             }
+            if (list[i].getName().endsWith(DictionaryCompiler.EXTENSION)) {
+                compiled = list[i];
+            }
         }
         if (affix != null && words != null) {
-            return new Dictionary(language, words, affix);
+            if (compiled != null) {
+                // a compiled copy was provided, keep it in sync with the sources
+                return DictionaryCompiler.load(language, words, affix, compiled, options);
+            }
+            return new Dictionary(language, words, affix, options);
         }
         return null;
     }
 
-    private Map<String, String> loadDictionaryList(String dictionaryFolder) throws IOException {
+    private static Map<String, String> loadDictionaryList(String dictionaryFolder) throws IOException {
         Map<String, String> zips = new HashMap<>();
         File folder = new File(dictionaryFolder);
         if (!folder.exists()) {
@@ -192,10 +465,20 @@ public class SpellChecker {
     }
 
     public void learn(String word) {
-        dictionary.learn(word);
+        userWords.learn(word);
+    }
+
+    /**
+     * Learns a group of words, such as the terms of a glossary, with a single
+     * write to the learned words file.
+     * 
+     * @param words the words to learn
+     */
+    public void learnAll(Collection<String> words) {
+        userWords.learnAll(words);
     }
 
     public void ignore(String word) {
-        dictionary.ignore(word);
+        userWords.ignore(word);
     }
 }
@@ -9,263 +9,475 @@
 *******************************************************************************/
 package com.maxprograms.mxspell;
 
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 
+/**
+ * Generates suggestions for misspelled words. The corrector only reads its
+ * dictionary and is safe for concurrent use.
+ */
 public class SpellCorrector {
 
-    private Dictionary dictionary;
-    private Map<String, String> replacement;
-    char[] tryCharacters;
-    private Locale locale;
+    /**
+     * Reusable buffer for candidate words. Edits change the characters in place
+     * and the buffer is passed to the dictionary as a CharSequence.
+     */
+    private static final class Candidate implements CharSequence {
+        char[] chars;
+        int length;
+
+        Candidate(int capacity) {
+            chars = new char[Math.max(capacity, 16)];
+        }
+
+        void set(String source, int start, int end) {
+            length = 0;
+            append(source, start, end);
+        }
+
+        void append(String source, int start, int end) {
+            ensureCapacity(length + end - start);
+            source.getChars(start, end, chars, length);
+            length += end - start;
+        }
+
+        void append(char c) {
+            ensureCapacity(length + 1);
+            chars[length++] = c;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(capacity, chars.length * 2));
+            }
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(chars, start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, 0, length);
+        }
+    }
+
+    // costs of the edits that produce suggestions, see suggest(String, int)
+    private static final double REPLACEMENT_COST = 0.5;
+    private static final double DOUBLE_COST = 0.6;
+    private static final double SWAP_COST = 0.8;
+    private static final double EDIT_COST = 1.0;
+    private static final double WORD_WITHIN_COST = 1.0;
+    private static final double SPLIT_COST = 1.5;
+    private static final double CASE_COST = 0.1;
+
+    /**
+     * Receives the dictionary words found by the suggestion stages.
+     */
+    private interface Suggestions {
+        void add(String found, double cost);
+    }
+
+    /**
+     * All suggestions in the order they are found.
+     */
+    private static final class Unranked implements Suggestions {
+        final List<String> words = new ArrayList<>();
+        private final Set<String> seen = new HashSet<>();
+
+        @Override
+        public void add(String found, double cost) {
+            if (seen.add(found)) {
+                words.add(found);
+            }
+        }
+    }
+
+    private record Scored(String word, double cost, int sequence) {
+    }
+
+    /**
+     * The cheapest suggestions found so far, in a bounded heap with the most
+     * expensive one on top. Ties keep the suggestion found first.
+     */
+    private static final class Ranking implements Suggestions {
+        private static final Comparator<Scored> ORDER = Comparator.comparingDouble(Scored::cost)
+                .thenComparingInt(Scored::sequence);
+
+        private final boolean upperCase;
+        private final int capacity;
+        private final PriorityQueue<Scored> heap;
+        private final Map<String, Scored> scored = new HashMap<>();
+        private int sequence;
+
+        Ranking(String word, int capacity) {
+            upperCase = !word.isEmpty() && Character.isUpperCase(word.charAt(0));
+            this.capacity = capacity;
+            // the capacity can be as large as Integer.MAX_VALUE
+            heap = new PriorityQueue<>(Math.min(capacity, 16) + 1, ORDER.reversed());
+        }
+
+        @Override
+        public void add(String found, double cost) {
+            if (Character.isUpperCase(found.charAt(0)) != upperCase) {
+                cost += CASE_COST;
+            }
+            Scored previous = scored.get(found);
+            if (previous != null) {
+                if (cost < previous.cost()) {
+                    heap.remove(previous);
+                    insert(new Scored(found, cost, previous.sequence()));
+                }
+                return;
+            }
+            if (heap.size() == capacity) {
+                if (cost >= heap.peek().cost()) {
+                    return;
+                }
+                scored.remove(heap.poll().word());
+            }
+            insert(new Scored(found, cost, sequence++));
+        }
+
+        private void insert(Scored entry) {
+            heap.add(entry);
+            scored.put(entry.word(), entry);
+        }
+
+        /**
+         * Checks whether a stage can be skipped because the ranking is full of
+         * suggestions that are not more expensive than anything the stage can
+         * find.
+         */
+        boolean isSettled(double minimumCost) {
+            return heap.size() == capacity && heap.peek().cost() <= minimumCost;
+        }
+
+        String[] toArray() {
+            Scored[] entries = heap.toArray(new Scored[heap.size()]);
+            Arrays.sort(entries, ORDER);
+            String[] result = new String[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                result[i] = entries[i].word();
+            }
+            return result;
+        }
+    }
+
+    private final Dictionary dictionary;
+    private final UserWords userWords;
+    private final Map<String, String> replacement;
+    final char[] tryCharacters;
+    private final Locale locale;
+    // 0 generates candidates, otherwise the distance searched in the dictionary
+    private volatile int maxDistance;
 
     public SpellCorrector(Dictionary dictionary, String language) {
+        this(dictionary, dictionary.getUserWords(), language);
+    }
+
+    SpellCorrector(Dictionary dictionary, UserWords userWords, String language) {
         this.dictionary = dictionary;
+        this.userWords = userWords;
         replacement = dictionary.getReplacementMap();
         tryCharacters = dictionary.getTryCharacters();
         locale = new Locale(language);
     }
 
+    /**
+     * Checks the spelling of a word without generating suggestions. Uppercase
+     * and capitalized words are also accepted when their lowercase form is
+     * correct.
+     * 
+     * @param word the word to check
+     * @return true if the word is spelled correctly
+     */
+    public boolean isCorrect(String word) {
+        if (isKnown(word)) {
+            return true;
+        }
+        return (isUppercase(word) || isCapitalized(word)) && isKnown(word.toLowerCase(locale));
+    }
+
+    /**
+     * Selects how suggestions are found. With 0, the default, candidates are
+     * generated by deleting, replacing, inserting and swapping characters and
+     * looked up in the dictionary. With a larger value, an automaton of the
+     * dictionary words is walked to find all the words within that edit
+     * distance, so suggestions two edits away are found at a cost that depends
+     * on the number of words close to the misspelling.
+     * 
+     * @param distance largest edit distance, or 0 to generate candidates
+     */
+    public void setMaxDistance(int distance) {
+        maxDistance = distance;
+    }
+
+    public int getMaxDistance() {
+        return maxDistance;
+    }
+
+    /**
+     * Generates all the suggestions for a misspelled word, in the order they
+     * are found. The suggestions are the same as those of
+     * {@link #suggest(String, int)} without a limit, unranked.
+     * 
+     * @param word the word to check
+     * @return the suggestions, an empty array if the word is correct or the
+     *         word itself if there are no suggestions
+     */
     public String[] suggest(String word) {
-        DictionaryEntry entry = dictionary.lookup(word);
-        if (entry != null) {
+        if (isCorrect(word)) {
             return new String[] {};
         }
-        if (isUppercase(word)) {
-            String lower = word.toLowerCase(locale);
-            entry = dictionary.lookup(lower);
-            if (entry != null) {
-                return new String[] {};
-            }
+
+        Unranked result = new Unranked();
+        Candidate candidate = new Candidate(word.length() + 1);
+
+        int distance = maxDistance;
+        if (distance > 0) {
+            checkWordsWithin(word, distance, result);
+            checkReplacements(word, candidate, result);
+        } else {
+            checkDeletes(word, candidate, result);
+            checkReplacements(word, candidate, result);
+            checkTryReplacements(word, candidate, result);
+            checkInserts(word, candidate, result);
+            checkSwaps(word, candidate, result);
         }
-        if (isCapitalized(word)) {
-            String lower = word.toLowerCase(locale);
-            entry = dictionary.lookup(lower);
-            if (entry != null) {
-                return new String[] {};
-            }
+        checkSplits(word, candidate, result);
+        checkNearWords(word, result);
+
+        if (!result.words.isEmpty()) {
+            return result.words.toArray(new String[result.words.size()]);
         }
+        // not found and no suggestions, return current word as result
+        return new String[] { word };
+    }
 
-        List<String> result = new ArrayList<>();
-        Set<String> checkList = new HashSet<>();
-        int length = word.length();
+    /**
+     * Generates the best suggestions for a misspelled word, most likely first.
+     * Each suggestion has a cost: replacement table hits are cheapest, then
+     * swapped characters, doubled or undoubled letters, other single edits,
+     * words farther away and finally pairs of words; a change of case in the
+     * first letter adds a small penalty. Only the best candidates are kept,
+     * and stages that cannot produce a candidate cheaper than those already
+     * found are skipped.
+     * 
+     * @param word           the word to check
+     * @param maxSuggestions maximum number of suggestions
+     * @return the suggestions, an empty array if the word is correct or the
+     *         word itself if there are no suggestions
+     */
+    public String[] suggest(String word, int maxSuggestions) {
+        if (isCorrect(word) || maxSuggestions < 1) {
+            return new String[] {};
+        }
 
-        // try removing a char at a time
-        for (int i = 0; i < length; i++) {
-            StringBuilder candidate = new StringBuilder();
-            for (int j = 0; j < length; j++) {
-                if (i != j) {
-                    candidate.append(word.charAt(j));
-                }
+        Ranking ranking = new Ranking(word, maxSuggestions);
+        Candidate candidate = new Candidate(word.length() + 1);
+
+        checkReplacements(word, candidate, ranking);
+        int distance = maxDistance;
+        if (distance > 0) {
+            if (!ranking.isSettled(WORD_WITHIN_COST)) {
+                checkWordsWithin(word, distance, ranking);
             }
-            entry = dictionary.lookup(candidate.toString());
-            if (entry != null) {
-                try {
-                    List<String> words = dictionary.getWords(entry);
-                    if (words.contains(word)) {
-                        return new String[] {};
-                    }
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-                if (!checkList.contains(candidate.toString())) {
-                    result.add(candidate.toString());
-                    checkList.add(candidate.toString());
-                }
+        } else {
+            if (!ranking.isSettled(SWAP_COST)) {
+                checkSwaps(word, candidate, ranking);
+            }
+            if (!ranking.isSettled(DOUBLE_COST)) {
+                checkDeletes(word, candidate, ranking);
+            }
+            if (!ranking.isSettled(DOUBLE_COST)) {
+                checkInserts(word, candidate, ranking);
             }
+            if (!ranking.isSettled(EDIT_COST)) {
+                checkTryReplacements(word, candidate, ranking);
+            }
+        }
+        if (!ranking.isSettled(WORD_WITHIN_COST)) {
+            checkNearWords(word, ranking);
+        }
+        if (!ranking.isSettled(SPLIT_COST)) {
+            checkSplits(word, candidate, ranking);
         }
 
-        // check replacement tables
-        if (replacement != null) {
-            Set<String> set = replacement.keySet();
-            Iterator<String> it = set.iterator();
-            while (it.hasNext()) {
-                String key = it.next();
-                String replace = replacement.get(key);
-                int index = word.indexOf(key);
-                while (index != -1) {
-                    String candidate = word.substring(0, index) + replace + word.substring(index + key.length());
-                    entry = dictionary.lookup(candidate);
-                    if (entry != null) {
-                        try {
-                            List<String> words = dictionary.getWords(entry);
-                            if (words.contains(word)) {
-                                return new String[] {};
-                            }
-                        } catch (IOException e) {
-                            e.printStackTrace();
-                        }
-                        if (!checkList.contains(candidate.toString())) {
-                            result.add(candidate.toString());
-                            checkList.add(candidate.toString());
-                        }
-                    }
-                    index = word.indexOf(key, index + 1);
-                }
+        String[] result = ranking.toArray();
+        return result.length > 0 ? result : new String[] { word };
+    }
+
+    /**
+     * Suggests the dictionary words that share most n-grams with a misspelled
+     * word, for misspellings that no edit can fix.
+     * 
+     * @param word the misspelled word
+     * @return the suggestions, most similar first
+     */
+    String[] suggestSimilar(String word) {
+        List<String> result = dictionary.getNgramWords(word);
+        return result.toArray(new String[result.size()]);
+    }
+
+    // try removing a char at a time
+    private void checkDeletes(String word, Candidate candidate, Suggestions result) {
+        int length = word.length();
+        for (int i = 0; i < length; i++) {
+            candidate.set(word, 0, i);
+            candidate.append(word, i + 1, length);
+            boolean doubled = i > 0 && word.charAt(i) == word.charAt(i - 1);
+            check(candidate, doubled ? DOUBLE_COST : EDIT_COST, result);
+        }
+    }
+
+    // check replacement tables
+    private void checkReplacements(String word, Candidate candidate, Suggestions result) {
+        if (replacement == null) {
+            return;
+        }
+        int length = word.length();
+        for (Map.Entry<String, String> rep : replacement.entrySet()) {
+            String key = rep.getKey();
+            String replace = rep.getValue();
+            int index = word.indexOf(key);
+            while (index != -1) {
+                candidate.set(word, 0, index);
+                candidate.append(replace, 0, replace.length());
+                candidate.append(word, index + key.length(), length);
+                check(candidate, REPLACEMENT_COST, result);
+                index = word.indexOf(key, index + 1);
             }
         }
-        // try replacing each char with a TRY character
+    }
+
+    // try replacing each char with a TRY character
+    private void checkTryReplacements(String word, Candidate candidate, Suggestions result) {
+        int length = word.length();
+        candidate.set(word, 0, length);
         for (int i = 0; i < tryCharacters.length; i++) {
             for (int j = 0; j < length; j++) {
-                StringBuilder candidate = new StringBuilder();
-                for (int h = 0; h < length; h++) {
-                    if (h != j) {
-                        candidate.append(word.charAt(h));
-                    } else {
-                        candidate.append(tryCharacters[i]);
-                    }
-                }
-                entry = dictionary.lookup(candidate.toString());
-                if (entry != null) {
-                    try {
-                        List<String> words = dictionary.getWords(entry);
-                        if (words.contains(word)) {
-                            return new String[] {};
-                        }
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
-                    if (!checkList.contains(candidate.toString())) {
-                        result.add(candidate.toString());
-                        checkList.add(candidate.toString());
-                    }
-                }
+                candidate.chars[j] = tryCharacters[i];
+                check(candidate, EDIT_COST, result);
+                candidate.chars[j] = word.charAt(j);
             }
         }
+    }
 
-        // try adding a TRY character in front of each letter
+    // try adding a TRY character in front of each letter
+    private void checkInserts(String word, Candidate candidate, Suggestions result) {
+        int length = word.length();
         for (int i = 0; i < tryCharacters.length; i++) {
+            char c = tryCharacters[i];
+            candidate.set(word, 0, 0);
+            candidate.append(c);
+            candidate.append(word, 0, length);
             for (int j = 0; j < length; j++) {
-                StringBuffer candidate = new StringBuffer();
-                for (int h = 0; h < length; h++) {
-                    if (h != j) {
-                        candidate.append(word.charAt(h));
-                    } else {
-                        candidate.append(tryCharacters[i]);
-                        candidate.append(word.charAt(h));
-                    }
-                }
-                entry = dictionary.lookup(candidate.toString());
-                if (entry != null) {
-                    try {
-                        List<String> words = dictionary.getWords(entry);
-                        if (words.contains(word)) {
-                            return new String[] {};
-                        }
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
-                    if (!checkList.contains(candidate.toString())) {
-                        result.add(candidate.toString());
-                        checkList.add(candidate.toString());
-                    }
-                }
+                boolean doubled = word.charAt(j) == c || (j > 0 && word.charAt(j - 1) == c);
+                check(candidate, doubled ? DOUBLE_COST : EDIT_COST, result);
+                // move the inserted character one position to the right
+                candidate.chars[j] = word.charAt(j);
+                candidate.chars[j + 1] = c;
             }
         }
+    }
 
-        // try swapping 2 characters at a time
+    // try swapping 2 characters at a time
+    private void checkSwaps(String word, Candidate candidate, Suggestions result) {
+        int length = word.length();
+        candidate.set(word, 0, length);
         for (int i = 0; i < length - 1; i++) {
-            StringBuilder candidate = new StringBuilder();
-            for (int j = 0; j < length; j++) {
-                if (i != j) {
-                    candidate.append(word.charAt(j));
-                } else {
-                    candidate.append(word.charAt(j + 1));
-                    candidate.append(word.charAt(j));
-                    j++;
-                }
-            }
-            entry = dictionary.lookup(candidate.toString());
-            if (entry != null) {
-                try {
-                    List<String> words = dictionary.getWords(entry);
-                    if (words.contains(word)) {
-                        return new String[] {};
-                    }
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-                if (!checkList.contains(candidate.toString())) {
-                    result.add(candidate.toString());
-                    checkList.add(candidate.toString());
-                }
-            }
+            candidate.chars[i] = word.charAt(i + 1);
+            candidate.chars[i + 1] = word.charAt(i);
+            check(candidate, SWAP_COST, result);
+            candidate.chars[i] = word.charAt(i);
+            candidate.chars[i + 1] = word.charAt(i + 1);
         }
+    }
 
-        // check if we are dealing with two words
-        if (word.length() > 3) {
-            for (int i = 1; i < word.length() - 2; i++) {
-                String word1 = word.substring(0, i);
-                String word2 = word.substring(i);
-                DictionaryEntry entry1 = dictionary.lookup(word1);
-                DictionaryEntry entry2 = dictionary.lookup(word2);
-                if (entry1 != null && entry2 != null) {
-                    result.add(word1 + " " + word2);
-                    checkList.add(word1 + " " + word2);
+    // check if we are dealing with two words
+    private void checkSplits(String word, Candidate candidate, Suggestions result) {
+        int length = word.length();
+        Candidate second = new Candidate(length);
+        if (length > 3) {
+            for (int i = 1; i < length - 2; i++) {
+                candidate.set(word, 0, i);
+                second.set(word, i, length);
+                if (isWord(candidate) && isWord(second)) {
+                    result.add(word.substring(0, i) + " " + word.substring(i), SPLIT_COST);
                 }
             }
         }
 
         // German dictionary contains capitalized words
         // check for consecutive words keeping this in mind
-        if (word.length() > 3 && word.equals(capitalize(word))) {
-            for (int i = 1; i < word.length() - 2; i++) {
-                String word1 = capitalize(word.substring(0, i));
-                String word2 = capitalize(word.substring(i));
-                DictionaryEntry entry1 = dictionary.lookup(word1);
-                DictionaryEntry entry2 = dictionary.lookup(word2);
-                if (entry1 != null && entry2 != null) {
-                    result.add(word1 + " " + word2);
-                    checkList.add(word1 + " " + word2);
+        if (length > 3 && word.equals(capitalize(word))) {
+            for (int i = 1; i < length - 2; i++) {
+                // the first part of a capitalized word is already capitalized
+                candidate.set(word, 0, i);
+                if (isWord(candidate)) {
+                    String word2 = capitalize(word.substring(i));
+                    if (isWord(word2)) {
+                        result.add(word.substring(0, i) + " " + word2, SPLIT_COST);
+                    }
                 }
             }
         }
+    }
 
-        if (result.size() == 0) {
-            // may have a long suffix, try removing chars at the end
-            for (int i = length - 1; i > 0; i--) {
-                String candidate = word.substring(0, i);
-                entry = dictionary.lookup(candidate);
-                if (entry != null) {
-                    try {
-                        List<String> words = dictionary.getWords(entry);
-                        if (words.contains(word)) {
-                            return new String[] {};
-                        }
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
-                }
-            }
+    // dictionary words close to the misspelling, closest first
+    private void checkWordsWithin(String word, int distance, Suggestions result) {
+        for (String near : dictionary.getWordsWithin(word, distance)) {
+            result.add(near, EditDistance.distance(word, near, distance) * WORD_WITHIN_COST);
+        }
+    }
 
-            // may have a long prefix, try removing chars at the beginning
-            for (int i = 1; i < length; i++) {
-                String candidate = word.substring(i);
-                entry = dictionary.lookup(candidate);
-                if (entry != null) {
-                    try {
-                        List<String> words = dictionary.getWords(entry);
-                        if (words.contains(word)) {
-                            return new String[] {};
-                        }
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
-                }
-            }
+    // words up to two edits away, when the dictionary has a delete index
+    private void checkNearWords(String word, Suggestions result) {
+        for (String near : dictionary.getNearWords(word)) {
+            result.add(near, EditDistance.distance(word, near, Integer.MAX_VALUE - 1) * WORD_WITHIN_COST);
         }
+    }
 
-        // not found and no suggestions, return current word as result
-        return new String[] { word };
+    private void check(Candidate candidate, double cost, Suggestions result) {
+        if (isWord(candidate)) {
+            // only candidates that are dictionary words become Strings
+            result.add(candidate.toString(), cost);
+        }
+    }
+
+    private boolean isWord(CharSequence word) {
+        return dictionary.isWord(word) || userWords.contains(word);
+    }
+
+    private boolean isKnown(String word) {
+        // plain dictionary, learned or ignored word, or a root with affixes
+        return isWord(word) || dictionary.findRoot(word) != null;
     }
 
     public String capitalize(String word) {
+        if (word.isEmpty()) {
+            return word;
+        }
         return word.substring(0, 1).toUpperCase(locale) + word.substring(1).toLowerCase(locale);
     }
 
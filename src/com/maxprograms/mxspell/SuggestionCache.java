@@ -0,0 +1,153 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of suggestions, evicting the least recently used words. The
+ * cache is split in segments with their own lock, so threads that check
+ * different words rarely wait for each other. Each segment is limited by
+ * number of entries and by weight, the number of characters of the word and
+ * its suggestions.
+ * <p>
+ * Entries remember the generation of the dictionary they were computed with
+ * and are discarded when words are learned or ignored.
+ */
+public final class SuggestionCache {
+
+    private static final int SEGMENTS = 16;
+    // approximate bytes of an entry besides its characters
+    private static final int ENTRY_WEIGHT = 64;
+
+    /**
+     * Cache counters.
+     *
+     * @param hits      requests answered from the cache
+     * @param misses    requests that had to compute suggestions
+     * @param evictions entries removed to respect the limits
+     * @param size      number of cached words
+     * @param weight    approximate size of the cached entries, in bytes
+     */
+    public record Statistics(long hits, long misses, long evictions, int size, long weight) {
+    }
+
+    private record Entry(String[] suggestions, long generation, int weight) {
+    }
+
+    private final class Segment extends LinkedHashMap<String, Entry> {
+
+        private static final long serialVersionUID = 1L;
+
+        long weight;
+
+        Segment() {
+            super(16, 0.75f, true);
+        }
+
+        void trim() {
+            Iterator<Map.Entry<String, Entry>> it = entrySet().iterator();
+            while (it.hasNext() && (size() > maxEntries / SEGMENTS || weight > maxWeight / SEGMENTS)) {
+                weight -= it.next().getValue().weight();
+                it.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxEntries maximum number of cached words
+     * @param maxWeight  maximum size of the cached entries, in bytes
+     */
+    public SuggestionCache(int maxEntries, long maxWeight) {
+        this.maxEntries = Math.max(maxEntries, SEGMENTS);
+        this.maxWeight = Math.max(maxWeight, SEGMENTS * 1024L);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    private Segment segment(String word) {
+        int h = word.hashCode();
+        return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    String[] get(String word, long generation) {
+        Segment segment = segment(word);
+        Entry entry;
+        synchronized (segment) {
+            entry = segment.get(word);
+            if (entry != null && entry.generation() != generation) {
+                segment.remove(word);
+                segment.weight -= entry.weight();
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.suggestions().clone();
+    }
+
+    void put(String word, String[] suggestions, long generation) {
+        int weight = ENTRY_WEIGHT + 2 * word.length();
+        for (String suggestion : suggestions) {
+            weight += ENTRY_WEIGHT / 2 + 2 * suggestion.length();
+        }
+        Entry entry = new Entry(suggestions.clone(), generation, weight);
+        Segment segment = segment(word);
+        synchronized (segment) {
+            Entry previous = segment.put(word, entry);
+            if (previous != null) {
+                segment.weight -= previous.weight();
+            }
+            segment.weight += weight;
+            segment.trim();
+        }
+    }
+
+    /**
+     * Removes all entries. Counters are not reset.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+                segment.weight = 0;
+            }
+        }
+    }
+
+    public Statistics getStatistics() {
+        int size = 0;
+        long weight = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+                weight += segment.weight;
+            }
+        }
+        return new Statistics(hits.sum(), misses.sum(), evictions.sum(), size, weight);
+    }
+}
@@ -0,0 +1,66 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import java.io.File;
+import java.util.Collection;
+
+/**
+ * Learned and ignored words of a data folder. User words are kept apart from
+ * the dictionary, so one loaded dictionary can serve checkers that save their
+ * words in different folders.
+ */
+final class UserWords {
+
+    private final File folder;
+    private final WordJournal learnedWords;
+    private final WordJournal ignoredWords;
+
+    UserWords(File folder) {
+        this.folder = folder;
+        learnedWords = WordJournal.open(new File(folder, "learned.txt"));
+        ignoredWords = WordJournal.open(new File(folder, "ignored.txt"));
+    }
+
+    File getFolder() {
+        return folder;
+    }
+
+    boolean contains(CharSequence word) {
+        return learnedWords.contains(word) || ignoredWords.contains(word);
+    }
+
+    void learn(String word) {
+        learnedWords.add(word);
+    }
+
+    void learnAll(Collection<String> words) {
+        learnedWords.addAll(words);
+    }
+
+    void ignore(String word) {
+        ignoredWords.add(word);
+    }
+
+    /**
+     * Returns a number that changes whenever words are added, see
+     * {@link SuggestionCache}.
+     *
+     * @return the current generation
+     */
+    long getGeneration() {
+        return learnedWords.getGeneration() + ignoredWords.getGeneration();
+    }
+
+    void flush() {
+        learnedWords.flush();
+        ignoredWords.flush();
+    }
+}
@@ -0,0 +1,389 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Compact word storage based on a minimal acyclic automaton. Words that share
+ * prefixes or suffixes share states, and all states and arcs live in a few
+ * primitive arrays. Every word has a rank (its position in sorted order) that
+ * is computed while walking the automaton and used to find its flag set.
+ */
+final class WordAutomaton implements WordStore {
+
+    // arcs of state s are in [firstArc[s], firstArc[s + 1]), sorted by label
+    private final int[] firstArc;
+    private final BitSet finals;
+    private final char[] labels;
+    private final int[] targets;
+    // number of words that sort before the words reached through each arc
+    private final int[] arcRanks;
+
+    // flags of each word by rank, instances are shared by the parser
+    private final FlagSet[] flags;
+    // original spelling of the few words that differ from their normalized key
+    private final Map<Integer, String> spellings;
+    private final int size;
+
+    private static final class State {
+        char[] labels = new char[0];
+        State[] targets = new State[0];
+        boolean isFinal;
+        int id = -1;
+        int count;
+
+        void addArc(char c, State target) {
+            int n = labels.length;
+            labels = Arrays.copyOf(labels, n + 1);
+            targets = Arrays.copyOf(targets, n + 1);
+            labels[n] = c;
+            targets[n] = target;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof State other) {
+                if (isFinal != other.isFinal || !Arrays.equals(labels, other.labels)) {
+                    return false;
+                }
+                for (int i = 0; i < targets.length; i++) {
+                    if (targets[i] != other.targets[i]) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = isFinal ? 1 : 0;
+            for (int i = 0; i < labels.length; i++) {
+                h = 31 * h + labels[i];
+                h = 31 * h + System.identityHashCode(targets[i]);
+            }
+            return h;
+        }
+    }
+
+    private WordAutomaton(int[] firstArc, BitSet finals, char[] labels, int[] targets, int[] arcRanks,
+            FlagSet[] flags, Map<Integer, String> spellings) {
+        this.firstArc = firstArc;
+        this.finals = finals;
+        this.labels = labels;
+        this.targets = targets;
+        this.arcRanks = arcRanks;
+        this.flags = flags;
+        this.spellings = spellings;
+        this.size = flags.length;
+    }
+
+    /**
+     * Builds the minimal automaton that accepts the keys of a word store, using
+     * the incremental algorithm for sorted input by Daciuk, Mihov, Watson and
+     * Watson.
+     *
+     * @param words the words to store
+     * @return the automaton
+     */
+    static WordAutomaton build(WordStore words) {
+        List<String> keys = new ArrayList<>(words.size());
+        Map<String, DictionaryEntry> entries = new HashMap<>(words.size() * 4 / 3 + 1);
+        words.forEach((key, entry) -> {
+            keys.add(key);
+            entries.put(key, entry);
+        });
+        keys.sort(null);
+
+        Map<State, State> register = new HashMap<>();
+        State root = new State();
+        List<State> path = new ArrayList<>();
+        path.add(root);
+        String previous = "";
+        for (String key : keys) {
+            int prefix = 0;
+            int max = Math.min(previous.length(), key.length());
+            while (prefix < max && previous.charAt(prefix) == key.charAt(prefix)) {
+                prefix++;
+            }
+            replaceOrRegister(path, prefix, register);
+            for (int i = prefix; i < key.length(); i++) {
+                State state = new State();
+                path.get(i).addArc(key.charAt(i), state);
+                path.add(state);
+            }
+            path.get(key.length()).isFinal = true;
+            previous = key;
+        }
+        replaceOrRegister(path, 0, register);
+
+        // number the states and count the words accepted from each one
+        List<State> states = new ArrayList<>();
+        number(root, states);
+        // root was numbered last, move it to the front so it is state 0
+        states.add(0, states.remove(states.size() - 1));
+        for (int i = 0; i < states.size(); i++) {
+            states.get(i).id = i;
+        }
+        int arcCount = 0;
+        for (State state : states) {
+            arcCount += state.labels.length;
+        }
+        int[] firstArc = new int[states.size() + 1];
+        BitSet finals = new BitSet(states.size());
+        char[] labels = new char[arcCount];
+        int[] targets = new int[arcCount];
+        int[] arcRanks = new int[arcCount];
+        int arc = 0;
+        for (State state : states) {
+            firstArc[state.id] = arc;
+            if (state.isFinal) {
+                finals.set(state.id);
+            }
+            int rank = state.isFinal ? 1 : 0;
+            for (int i = 0; i < state.labels.length; i++) {
+                labels[arc] = state.labels[i];
+                targets[arc] = state.targets[i].id;
+                arcRanks[arc] = rank;
+                rank += state.targets[i].count;
+                arc++;
+            }
+        }
+        firstArc[states.size()] = arc;
+
+        FlagSet[] flags = new FlagSet[keys.size()];
+        Map<Integer, String> spellings = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            String key = keys.get(i);
+            DictionaryEntry entry = entries.get(key);
+            flags[i] = entry.getFlagSet();
+            if (!key.equals(entry.getWord())) {
+                spellings.put(i, entry.getWord());
+            }
+        }
+        return new WordAutomaton(firstArc, finals, labels, targets, arcRanks, flags, spellings);
+    }
+
+    private static void replaceOrRegister(List<State> path, int prefix, Map<State, State> register) {
+        for (int i = path.size() - 1; i > prefix; i--) {
+            State state = path.get(i);
+            State parent = path.get(i - 1);
+            State existing = register.get(state);
+            if (existing != null) {
+                parent.targets[parent.targets.length - 1] = existing;
+            } else {
+                register.put(state, state);
+            }
+            path.remove(i);
+        }
+    }
+
+    private static void number(State state, List<State> states) {
+        // post-order, so the counts of the targets are known
+        int count = state.isFinal ? 1 : 0;
+        for (State target : state.targets) {
+            if (target.id == -1) {
+                number(target, states);
+            }
+            count += target.count;
+        }
+        state.count = count;
+        state.id = states.size();
+        states.add(state);
+    }
+
+    int root() {
+        return 0;
+    }
+
+    int firstArc(int state) {
+        return firstArc[state];
+    }
+
+    int endArc(int state) {
+        return firstArc[state + 1];
+    }
+
+    char label(int arc) {
+        return labels[arc];
+    }
+
+    int target(int arc) {
+        return targets[arc];
+    }
+
+    boolean isFinal(int state) {
+        return finals.get(state);
+    }
+
+    /**
+     * Finds the arc that leaves a state with the given label.
+     *
+     * @param state the state
+     * @param c     the label
+     * @return the arc index or -1
+     */
+    int findArc(int state, char c) {
+        int low = firstArc[state];
+        int high = firstArc[state + 1] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char label = labels[middle];
+            if (label < c) {
+                low = middle + 1;
+            } else if (label > c) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the rank of a key, its position among the stored words in sorted
+     * order.
+     *
+     * @param key normalized key
+     * @return the rank or -1 if the key is not stored
+     */
+    int rank(CharSequence key) {
+        int state = 0;
+        int rank = 0;
+        int length = key.length();
+        for (int i = 0; i < length; i++) {
+            int arc = findArc(state, key.charAt(i));
+            if (arc == -1) {
+                return -1;
+            }
+            rank += arcRanks[arc];
+            state = targets[arc];
+        }
+        return finals.get(state) ? rank : -1;
+    }
+
+    /**
+     * Finds the stored words within a given distance of a word. The automaton
+     * is walked depth first, computing one row of the distance table of
+     * {@link EditDistance} for each arc; arcs whose row has no value within the
+     * distance are not followed, so the cost depends on the number of words
+     * close to the given one and not on the size of the alphabet.
+     *
+     * @param word     normalized word
+     * @param distance largest distance
+     * @param consumer receives each key found and its distance
+     */
+    void search(CharSequence word, int distance, ObjIntConsumer<String> consumer) {
+        int length = word.length();
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = word.charAt(i);
+        }
+        int[][] rows = new int[length + distance + 1][length + 1];
+        for (int j = 0; j <= length; j++) {
+            rows[0][j] = Math.min(j, distance + 1);
+        }
+        search(0, 0, chars, distance, rows, new char[length + distance], consumer);
+    }
+
+    private void search(int state, int depth, char[] word, int distance, int[][] rows, char[] prefix,
+            ObjIntConsumer<String> consumer) {
+        int length = word.length;
+        int[] row = rows[depth];
+        if (finals.get(state) && row[length] <= distance) {
+            consumer.accept(new String(prefix, 0, depth), row[length]);
+        }
+        if (depth == prefix.length) {
+            // longer keys are too far from the word
+            return;
+        }
+        int[] next = rows[depth + 1];
+        int[] previous = depth > 0 ? rows[depth - 1] : null;
+        // only cells within the distance of the diagonal can be small enough
+        int low = Math.max(1, depth + 1 - distance);
+        int high = Math.min(length, depth + 1 + distance);
+        int limit = distance + 1;
+        for (int arc = firstArc[state]; arc < firstArc[state + 1]; arc++) {
+            char c = labels[arc];
+            next[0] = Math.min(depth + 1, limit);
+            next[low - 1] = low == 1 ? next[0] : limit;
+            int min = next[low - 1];
+            for (int j = low; j <= high; j++) {
+                char w = word[j - 1];
+                int value = Math.min(Math.min(row[j] + 1, next[j - 1] + 1), row[j - 1] + (c == w ? 0 : 1));
+                if (previous != null && j > 1 && c == word[j - 2] && prefix[depth - 1] == w) {
+                    // swapped characters
+                    value = Math.min(value, previous[j - 2] + 1);
+                }
+                next[j] = Math.min(value, limit);
+                min = Math.min(min, value);
+            }
+            if (high < length) {
+                // cells past the band are read by the next row and the final check
+                next[high + 1] = limit;
+                next[length] = limit;
+            }
+            if (min <= distance) {
+                prefix[depth] = c;
+                search(targets[arc], depth + 1, word, distance, rows, prefix, consumer);
+            }
+        }
+    }
+
+    private DictionaryEntry entry(int rank, String key) {
+        String word = spellings.getOrDefault(rank, key);
+        return new DictionaryEntry(word, flags[rank]);
+    }
+
+    @Override
+    public DictionaryEntry get(CharSequence key) {
+        int rank = rank(key);
+        return rank == -1 ? null : entry(rank, key.toString());
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long memoryUsage() {
+        return firstArc.length * 4L + finals.size() / 8 + labels.length * 2L + targets.length * 4L
+                + arcRanks.length * 4L + flags.length * 4L + spellings.size() * 100L;
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, DictionaryEntry> action) {
+        walk(0, new StringBuilder(), 0, action);
+    }
+
+    private int walk(int state, StringBuilder prefix, int rank, BiConsumer<String, DictionaryEntry> action) {
+        if (finals.get(state)) {
+            String key = prefix.toString();
+            action.accept(key, entry(rank, key));
+            rank++;
+        }
+        for (int arc = firstArc[state]; arc < firstArc[state + 1]; arc++) {
+            prefix.append(labels[arc]);
+            rank = walk(targets[arc], prefix, rank, action);
+            prefix.setLength(prefix.length() - 1);
+        }
+        return rank;
+    }
+}
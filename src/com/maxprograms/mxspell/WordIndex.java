@@ -0,0 +1,154 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Open addressing hash table for exact word lookups. Keys must be normalized
+ * with {@link KeyNormalizer} before they are stored or searched.
+ */
+final class WordIndex implements WordStore {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private String[] keys;
+    private int[] hashes;
+    private DictionaryEntry[] values;
+    private int mask;
+    private int size;
+    private int threshold;
+
+    WordIndex(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3L / 4 < expected) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        hashes = new int[capacity];
+        values = new DictionaryEntry[capacity];
+        mask = capacity - 1;
+        threshold = capacity * 3 / 4;
+    }
+
+    static int hash(CharSequence key) {
+        // same value as String.hashCode(), so String keys reuse their cached hash
+        if (key instanceof String string) {
+            return mix(string.hashCode());
+        }
+        int h = 0;
+        int length = key.length();
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + key.charAt(i);
+        }
+        return mix(h);
+    }
+
+    private static int mix(int h) {
+        // words that differ in the last character have consecutive String hashes,
+        // spread them or linear probing builds long clusters
+        int x = h * 0x9E3779B9;
+        return x ^ (x >>> 16);
+    }
+
+    private static boolean sameKey(String stored, CharSequence key) {
+        if (key instanceof String string) {
+            return stored.equals(string);
+        }
+        return stored.contentEquals(key);
+    }
+
+    @Override
+    public DictionaryEntry get(CharSequence key) {
+        int h = hash(key);
+        int i = h & mask;
+        String stored;
+        while ((stored = keys[i]) != null) {
+            if (hashes[i] == h && sameKey(stored, key)) {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    DictionaryEntry put(String key, DictionaryEntry entry) {
+        int h = hash(key);
+        int i = h & mask;
+        String stored;
+        while ((stored = keys[i]) != null) {
+            if (hashes[i] == h && stored.equals(key)) {
+                DictionaryEntry previous = values[i];
+                values[i] = entry;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        hashes[i] = h;
+        values[i] = entry;
+        if (++size > threshold) {
+            rehash();
+        }
+        return null;
+    }
+
+    private void rehash() {
+        String[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        DictionaryEntry[] oldValues = values;
+        allocate(oldKeys.length << 1);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != null) {
+                int i = oldHashes[j] & mask;
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                hashes[i] = oldHashes[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long memoryUsage() {
+        // slot arrays, then String and DictionaryEntry headers plus Latin-1 chars;
+        // flag sets are shared and not counted
+        long total = 16L * 3 + keys.length * 12L;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                total += 40 + keys[i].length() + 24;
+                if (!keys[i].equals(values[i].getWord())) {
+                    total += 40 + values[i].getWord().length();
+                }
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, DictionaryEntry> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Set of words kept in a text file with one word per line. New words are
+ * appended to the file in batches by a background thread, so adding a word
+ * never rewrites the file; the file is rewritten only when duplicated lines
+ * make it much larger than the set. All the {@link UserWords} that use the
+ * same file share one journal, see {@link #open(File)}.
+ */
+final class WordJournal {
+
+    private static final Logger logger = System.getLogger(WordJournal.class.getName());
+
+    // delay between the first pending word and the write that saves it
+    private static final long FLUSH_DELAY = 200;
+    // delay before writing again after a failed write
+    private static final long RETRY_DELAY = 5000;
+    private static final int COMPACT_MINIMUM = 1000;
+
+    private static final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "mxspell-journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // journals with words not yet written, saved on shutdown
+    private static final Set<WordJournal> dirty = ConcurrentHashMap.newKeySet();
+    // one journal per file, so that compacting one never drops words added to
+    // another; released when no checker or dictionary uses it
+    private static final Map<File, JournalReference> journals = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<WordJournal> released = new ReferenceQueue<>();
+
+    private static final class JournalReference extends WeakReference<WordJournal> {
+        final File key;
+
+        JournalReference(WordJournal journal, File key) {
+            super(journal, released);
+            this.key = key;
+        }
+    }
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (WordJournal journal : dirty) {
+                journal.flush();
+            }
+        }, "mxspell-journal-shutdown"));
+    }
+
+    private final File file;
+    private final Set<String> words = ConcurrentHashMap.newKeySet();
+    private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    // true after a failed write, until a write succeeds
+    private boolean failing;
+    // changes when words are added, see SuggestionCache
+    private final AtomicLong generation = new AtomicLong();
+    // lines in the file, including duplicates written by other processes
+    private int lines;
+
+    private WordJournal(File file) {
+        this.file = file;
+        try {
+            read();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the journal of a file. Checkers and dictionaries that use the
+     * same data folder get the same journal, with its pending words. Journals
+     * with words not yet written are kept until they are saved.
+     *
+     * @param file the file, which may not exist yet
+     * @return the journal
+     */
+    static WordJournal open(File file) {
+        purge();
+        File key;
+        try {
+            key = file.getCanonicalFile();
+        } catch (IOException e) {
+            key = file.getAbsoluteFile();
+        }
+        WordJournal[] result = new WordJournal[1];
+        journals.compute(key, (k, reference) -> {
+            WordJournal journal = reference != null ? reference.get() : null;
+            if (journal == null) {
+                journal = new WordJournal(k);
+                reference = new JournalReference(journal, k);
+            }
+            result[0] = journal;
+            return reference;
+        });
+        return result[0];
+    }
+
+    // removes the entries of journals that were garbage collected
+    private static void purge() {
+        JournalReference reference;
+        while ((reference = (JournalReference) released.poll()) != null) {
+            journals.remove(reference.key, reference);
+        }
+    }
+
+    /**
+     * Adds the words of the file to the set, including those written by other
+     * processes, and counts its lines.
+     */
+    private void read() throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        int count = 0;
+        try (FileReader reader = new FileReader(file, StandardCharsets.UTF_8)) {
+            try (BufferedReader buffered = new BufferedReader(reader)) {
+                String line = "";
+                while ((line = buffered.readLine()) != null) {
+                    words.add(line);
+                    count++;
+                }
+            }
+        }
+        lines = count;
+    }
+
+    boolean contains(CharSequence word) {
+        // most journals are empty, avoid creating a String for them
+        return !words.isEmpty() && words.contains(word.toString());
+    }
+
+    int size() {
+        return words.size();
+    }
+
+    void add(String word) {
+        if (words.add(word)) {
+            pending.add(word);
+            generation.incrementAndGet();
+            schedule();
+        }
+    }
+
+    void addAll(Collection<String> collection) {
+        boolean added = false;
+        for (String word : collection) {
+            if (words.add(word)) {
+                pending.add(word);
+                added = true;
+            }
+        }
+        if (added) {
+            generation.incrementAndGet();
+            schedule();
+        }
+    }
+
+    long getGeneration() {
+        return generation.get();
+    }
+
+    private void schedule() {
+        schedule(FLUSH_DELAY);
+    }
+
+    private void schedule(long delay) {
+        if (scheduled.compareAndSet(false, true)) {
+            dirty.add(this);
+            flusher.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes pending words to the file, rewriting it when it has too many
+     * duplicated lines. Words stay pending when the file cannot be written and
+     * the write is tried again later.
+     */
+    synchronized void flush() {
+        scheduled.set(false);
+        dirty.remove(this);
+        if (pending.isEmpty()) {
+            return;
+        }
+        // words added while writing stay in the queue for the next flush
+        List<String> batch = new ArrayList<>(pending);
+        try {
+            File folder = file.getAbsoluteFile().getParentFile();
+            if (!folder.exists()) {
+                Files.createDirectories(folder.toPath());
+            }
+            if (lines > COMPACT_MINIMUM && lines > 2 * words.size()) {
+                compact(folder);
+            } else {
+                try (Writer writer = new BufferedWriter(
+                        new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8))) {
+                    for (String word : batch) {
+                        writer.write(word);
+                        writer.write('\n');
+                    }
+                }
+                lines += batch.size();
+            }
+        } catch (IOException e) {
+            if (!failing) {
+                logger.log(Level.WARNING, e.getMessage());
+            }
+            failing = true;
+            schedule(RETRY_DELAY);
+            return;
+        }
+        failing = false;
+        // only flush() removes words, so the head of the queue is the batch
+        for (int i = 0; i < batch.size(); i++) {
+            pending.poll();
+        }
+    }
+
+    private void compact(File folder) throws IOException {
+        // keep the words that other processes appended since the file was read
+        read();
+        File tmp = File.createTempFile(file.getName(), ".tmp", folder);
+        try {
+            int written = 0;
+            try (Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8))) {
+                for (String word : words) {
+                    writer.write(word);
+                    writer.write('\n');
+                    written++;
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            lines = written;
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Read access to the words of a dictionary. Keys are normalized with
+ * {@link KeyNormalizer}.
+ */
+interface WordStore {
+
+    DictionaryEntry get(CharSequence key);
+
+    int size();
+
+    void forEach(BiConsumer<String, DictionaryEntry> action);
+
+    /**
+     * Estimates the heap used by the stored words. Memory mapped data is not
+     * counted.
+     *
+     * @return approximate size in bytes
+     */
+    long memoryUsage();
+
+    /**
+     * Estimates the heap used by a String: object and array headers plus one
+     * byte per character for Latin-1 text, two otherwise.
+     *
+     * @param value the String
+     * @return approximate size in bytes
+     */
+    static long stringSize(String value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) > 0xFF) {
+                return 40L + length * 2L;
+            }
+        }
+        return 40L + length;
+    }
+}
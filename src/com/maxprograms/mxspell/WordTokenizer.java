@@ -0,0 +1,146 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Finds the words of a text in a single pass, without creating Strings. Words
+ * are runs of word characters: letters, combining marks and the characters
+ * listed in the WORDCHARS option of the affix file. An apostrophe between two
+ * word characters is part of the word, as in Hunspell. Characters that are not
+ * letters, digits or marks are removed from both ends of a run, and runs
+ * without letters are skipped.
+ * <p>
+ * Instances are immutable and can be shared by any number of threads.
+ */
+final class WordTokenizer {
+
+    /**
+     * Receives the position of each word.
+     */
+    interface SpanConsumer {
+        void accept(int start, int end);
+    }
+
+    private static final char APOSTROPHE = '\'';
+    private static final char RIGHT_SINGLE_QUOTE = '\u2019';
+
+    // letters and marks of the Basic Multilingual Plane
+    private static final BitSet LETTERS = new BitSet(0x10000);
+
+    static {
+        for (int c = 0; c < 0x10000; c++) {
+            if (isLetterOrMark(c)) {
+                LETTERS.set(c);
+            }
+        }
+    }
+
+    private final BitSet wordChars;
+    // WORDCHARS outside the Basic Multilingual Plane
+    private final Set<Integer> supplementary = new HashSet<>();
+
+    /**
+     * Creates a tokenizer.
+     *
+     * @param wordCharacters extra word characters, from WORDCHARS, or null
+     */
+    WordTokenizer(String wordCharacters) {
+        if (wordCharacters == null || wordCharacters.isEmpty()) {
+            wordChars = LETTERS;
+            return;
+        }
+        wordChars = (BitSet) LETTERS.clone();
+        wordCharacters.codePoints().forEach(c -> {
+            if (Character.isBmpCodePoint(c)) {
+                wordChars.set(c);
+            } else {
+                supplementary.add(c);
+            }
+        });
+    }
+
+    private static boolean isLetterOrMark(int c) {
+        if (Character.isLetter(c)) {
+            return true;
+        }
+        int type = Character.getType(c);
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK
+                || type == Character.ENCLOSING_MARK;
+    }
+
+    static boolean isApostrophe(int c) {
+        return c == APOSTROPHE || c == RIGHT_SINGLE_QUOTE;
+    }
+
+    boolean isWordChar(int c) {
+        if (Character.isBmpCodePoint(c)) {
+            return wordChars.get(c);
+        }
+        return isLetterOrMark(c) || supplementary.contains(c);
+    }
+
+    /**
+     * Finds the words of a text.
+     *
+     * @param text     the text
+     * @param consumer receives the start and end of each word
+     */
+    void tokenize(CharSequence text, SpanConsumer consumer) {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            int c = Character.codePointAt(text, i);
+            if (!isWordChar(c)) {
+                i += Character.charCount(c);
+                continue;
+            }
+            int start = i;
+            i += Character.charCount(c);
+            while (i < length) {
+                c = Character.codePointAt(text, i);
+                if (isWordChar(c)) {
+                    i += Character.charCount(c);
+                } else if (isApostrophe(c) && i + 1 < length
+                        && isWordChar(Character.codePointAt(text, i + 1))) {
+                    i++;
+                } else {
+                    break;
+                }
+            }
+            emit(text, start, i, consumer);
+        }
+    }
+
+    private static void emit(CharSequence text, int start, int end, SpanConsumer consumer) {
+        boolean letters = false;
+        int first = -1;
+        int last = -1;
+        int i = start;
+        while (i < end) {
+            int c = Character.codePointAt(text, i);
+            int next = i + Character.charCount(c);
+            if (Character.isLetterOrDigit(c) || isLetterOrMark(c)) {
+                if (first == -1) {
+                    first = i;
+                }
+                last = next;
+                letters = letters || Character.isLetter(c);
+            }
+            i = next;
+        }
+        if (letters) {
+            consumer.accept(first, last);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*******************************************************************************
+* Copyright (c) 2023 Maxprograms.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 1.0 which accompanies this distribution,
+* and is available at https://www.eclipse.org/org/documents/epl-v10.html
+*
+* Contributors: Maxprograms - initial API and implementation
+*******************************************************************************/
+package com.maxprograms.mxspell;
+
+import java.io.File;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.charset.Charset;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parses the contents of a .dic file into a {@link WordIndex}. Large files are
+ * split at line boundaries and the chunks are parsed in parallel; entries are
+ * merged in file order, so the result is the same as reading line by line.
+ */
+final class WordsReader {
+
+    private static final Logger logger = System.getLogger(WordsReader.class.getName());
+
+    // files smaller than this are parsed on the calling thread
+    static final int PARALLEL_THRESHOLD = 1 << 20;
+    private static final int MIN_CHUNK = 1 << 18;
+
+    private final AffixParser parser;
+    private final KeyNormalizer normalizer;
+
+    private static final class Chunk {
+        final List<String> keys = new ArrayList<>();
+        final List<DictionaryEntry> entries = new ArrayList<>();
+    }
+
+    private final class ParseTask extends RecursiveTask<List<Chunk>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient byte[] data;
+        private final transient Charset encoding;
+        private final int start;
+        private final int end;
+        private final int chunkSize;
+
+        ParseTask(byte[] data, Charset encoding, int start, int end, int chunkSize) {
+            this.data = data;
+            this.encoding = encoding;
+            this.start = start;
+            this.end = end;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected List<Chunk> compute() {
+            if (end - start > chunkSize) {
+                int middle = start + (end - start) / 2;
+                while (middle < end && data[middle] != '\n') {
+                    middle++;
+                }
+                if (middle < end) {
+                    ParseTask first = new ParseTask(data, encoding, start, middle + 1, chunkSize);
+                    ParseTask second = new ParseTask(data, encoding, middle + 1, end, chunkSize);
+                    first.fork();
+                    List<Chunk> secondResult = second.compute();
+                    List<Chunk> result = new ArrayList<>(first.join());
+                    result.addAll(secondResult);
+                    return result;
+                }
+            }
+            return List.of(parseLines(new String(data, start, end - start, encoding)));
+        }
+    }
+
+    WordsReader(AffixParser parser, KeyNormalizer normalizer) {
+        this.parser = parser;
+        this.normalizer = normalizer;
+    }
+
+    /**
+     * Parses a .dic file.
+     *
+     * @param data     contents of the file
+     * @param encoding encoding declared in the affix file
+     * @param name     name of the file, used in warnings
+     * @param parallel true to parse large files in parallel
+     * @return the words of the file
+     */
+    WordIndex read(byte[] data, Charset encoding, String name, boolean parallel) {
+        int lineEnd = 0;
+        while (lineEnd < data.length && data[lineEnd] != '\n' && data[lineEnd] != '\r') {
+            lineEnd++;
+        }
+        String line = new String(data, 0, lineEnd, encoding);
+        int entries = 0;
+        int start = 0;
+        try {
+            // Danish dictionary has comment after word count, remove it
+            String[] result = line.split("\\s#");
+            entries = Integer.parseInt(result[0]);
+            start = lineEnd;
+        } catch (NumberFormatException nfe) {
+            MessageFormat mf = new MessageFormat(Messages.getString("Dictionary.5"));
+            Object[] args = { name };
+            logger.log(Level.WARNING, mf.format(args));
+        }
+        List<Chunk> chunks;
+        if (parallel && canSplit(encoding) && data.length - start >= PARALLEL_THRESHOLD) {
+            int parallelism = ForkJoinPool.commonPool().getParallelism();
+            int chunkSize = Math.max(MIN_CHUNK, (data.length - start) / (parallelism * 4));
+            chunks = ForkJoinPool.commonPool().invoke(new ParseTask(data, encoding, start, data.length, chunkSize));
+        } else {
+            chunks = List.of(parseLines(new String(data, start, data.length - start, encoding)));
+        }
+        WordIndex index = new WordIndex(entries);
+        for (Chunk chunk : chunks) {
+            for (int i = 0; i < chunk.keys.size(); i++) {
+                index.put(chunk.keys.get(i), chunk.entries.get(i));
+            }
+        }
+        if (entries != 0 && entries != index.size()) {
+            MessageFormat mf = new MessageFormat(Messages.getString("Dictionary.6"));
+            Object[] args = { new File(name).getName(), "" + entries, "" + index.size() };
+            logger.log(Level.WARNING, mf.format(args));
+        }
+        return index;
+    }
+
+    private static boolean canSplit(Charset encoding) {
+        // chunks are cut at '\n' bytes, which must not be part of a multi byte sequence
+        return Arrays.equals("\n".getBytes(encoding), new byte[] { '\n' });
+    }
+
+    private Chunk parseLines(String text) {
+        Chunk chunk = new Chunk();
+        int length = text.length();
+        int start = 0;
+        while (start < length) {
+            int end = start;
+            char c;
+            while (end < length && (c = text.charAt(end)) != '\n' && c != '\r') {
+                end++;
+            }
+            parseLine(text, start, end, chunk);
+            start = end + 1;
+        }
+        return chunk;
+    }
+
+    private void parseLine(String text, int start, int end, Chunk chunk) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        if (start == end) {
+            return;
+        }
+        int wordEnd = start;
+        char c;
+        while (wordEnd < end && (c = text.charAt(wordEnd)) != '/' && c != '\t' && c != ' ') {
+            wordEnd++;
+        }
+        String word = text.substring(start, wordEnd);
+        FlagSet flags = null;
+        if (wordEnd < end && text.charAt(wordEnd) == '/') {
+            int flagsEnd = wordEnd + 1;
+            while (flagsEnd < end && !Character.isWhitespace(text.charAt(flagsEnd))) {
+                flagsEnd++;
+            }
+            if (flagsEnd > wordEnd + 1) {
+                flags = parser.getFlagSet(text.substring(wordEnd + 1, flagsEnd));
+            }
+        }
+        chunk.keys.add(normalizer.normalize(word));
+        chunk.entries.add(new DictionaryEntry(word, flags));
+    }
+}